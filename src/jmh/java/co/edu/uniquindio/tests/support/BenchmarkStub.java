@@ -0,0 +1,93 @@
+package co.edu.uniquindio.tests.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keycloak mínimo en el mismo proceso para los benchmarks: responde el endpoint de token
+ * con un JWT de una hora. Los benchmarks miden el lado cliente, no la red.
+ */
+public final class BenchmarkStub {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final HttpServer server;
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private BenchmarkStub(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Levanta el stub en un puerto libre y apunta la configuración (keycloak.url y api.base.url)
+     * hacia él. Debe llamarse antes del primer uso de TestConfig.
+     */
+    public static BenchmarkStub start() throws IOException {
+        // Sin Nagle: con keep-alive, Nagle + ACK retardado agregan ~40 ms por solicitud
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        BenchmarkStub stub = new BenchmarkStub(server);
+        server.createContext("/realms/", stub::handleToken);
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        System.setProperty("keycloak.url", baseUrl);
+        System.setProperty("api.base.url", baseUrl);
+        System.setProperty("token.refresh.enabled", "false");
+        return stub;
+    }
+
+    public int getTokenRequests() {
+        return tokenRequests.get();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * JWT con la forma de los de Keycloak (firma de relleno: los benchmarks solo decodifican).
+     */
+    public static String jwt(String subject, String username) {
+        long now = Instant.now().getEpochSecond();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"benchmark\"}";
+        String payload = String.format("{\"exp\":%d,\"iat\":%d,\"iss\":\"http://localhost/realms/taller\","
+                        + "\"sub\":\"%s\",\"preferred_username\":\"%s\","
+                        + "\"realm_access\":{\"roles\":[\"offline_access\",\"uma_authorization\"]}}",
+                now + 3600, now, subject, username);
+        byte[] signature = new byte[256];
+        return encode(header) + "." + encode(payload) + "." + BASE64_URL.encodeToString(signature);
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        tokenRequests.incrementAndGet();
+        try (InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+        }
+        String json = String.format("{\"access_token\":\"%s\",\"expires_in\":3600,\"refresh_expires_in\":7200,"
+                + "\"refresh_token\":\"refresh\",\"token_type\":\"Bearer\"}", jwt(UUID.randomUUID().toString(), "benchmark"));
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static String encode(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
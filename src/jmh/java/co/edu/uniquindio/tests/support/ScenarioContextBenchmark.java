@@ -0,0 +1,35 @@
+package co.edu.uniquindio.tests.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acceso al contexto del escenario (ThreadLocal) desde los steps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScenarioContextBenchmark {
+
+    private int counter;
+
+    @Benchmark
+    public Object storeAndGet() {
+        ScenarioContext.store("newUserId", ++counter);
+        return ScenarioContext.get("newUserId");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object storeAndGetContended() {
+        ScenarioContext.store("newUserId", ++counter);
+        return ScenarioContext.get("newUserId");
+    }
+}
@@ -0,0 +1,73 @@
+package co.edu.uniquindio.tests.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino rápido de la caché de tokens y decodificación de JWT.
+ * Después del primer login (contra el stub) ninguna iteración debería tocar la red.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenClientBenchmark {
+
+    private static final String USERNAME = "benchmark@test.com";
+    private static final String PASSWORD = "Benchmark123!";
+
+    private BenchmarkStub stub;
+    private TokenClient tokenClient;
+    private String token;
+    private String freshToken;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stub = BenchmarkStub.start();
+        tokenClient = TokenClient.getInstance();
+        token = tokenClient.getToken(USERNAME, PASSWORD);
+        freshToken = BenchmarkStub.jwt(UUID.randomUUID().toString(), USERNAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (stub.getTokenRequests() != 1) {
+            throw new IllegalStateException("El camino rápido llamó al stub: " + stub.getTokenRequests() + " logins");
+        }
+        stub.stop();
+    }
+
+    @Benchmark
+    public String getTokenCached() {
+        return tokenClient.getToken(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String getTokenCachedContended() {
+        return tokenClient.getToken(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public String parseUserIdFromToken() {
+        return tokenClient.parseUserIdFromToken(token);
+    }
+
+    /**
+     * Decodificación completa de un JWT (lo que paga el primer uso de cada token).
+     */
+    @Benchmark
+    public JwtVerifier.JwtClaims decodeUncached() {
+        return JwtVerifier.JwtClaims.parse(freshToken);
+    }
+}
@@ -0,0 +1,58 @@
+package co.edu.uniquindio.tests.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de datos de prueba: no debe limitar la carga ni la ejecución en paralelo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsersDataBenchmark {
+
+    private UsersData.UserTestData user;
+    private UsersData.ProfileTestData profile;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = UsersData.generateRandomUser();
+        profile = UsersData.generateRandomProfile();
+    }
+
+    @Benchmark
+    public UsersData.UserTestData generateRandomUser() {
+        return UsersData.generateRandomUser();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UsersData.UserTestData generateRandomUserContended() {
+        return UsersData.generateRandomUser();
+    }
+
+    @Benchmark
+    public UsersData.ProfileTestData generateRandomProfile() {
+        return UsersData.generateRandomProfile();
+    }
+
+    @Benchmark
+    public Map<String, Object> userToMap() {
+        return UsersData.userToMap(user);
+    }
+
+    @Benchmark
+    public Map<String, Object> profileToMap() {
+        return UsersData.profileToMap(profile);
+    }
+}
@@ -0,0 +1,25 @@
+package co.edu.uniquindio.tests.config;
+
+import lombok.Value;
+
+/**
+ * Presupuesto de latencia de un endpoint: el percentil indicado no debe superar maxMs.
+ * Se declara en test.properties como {@code slo.budget.<MÉTODO>.<ruta>=p95:800,p99:1500}.
+ */
+@Value
+public class SloBudget {
+
+    /**
+     * Método + ruta con los identificadores como {id}, p. ej. "GET /api/usuarios".
+     */
+    String endpoint;
+    double percentile;
+    long maxMs;
+
+    @Override
+    public String toString() {
+        return String.format("%s p%s <= %d ms", endpoint,
+                percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile),
+                maxMs);
+    }
+}
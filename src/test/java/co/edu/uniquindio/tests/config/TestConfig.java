@@ -3,12 +3,20 @@ package co.edu.uniquindio.tests.config;
 import lombok.Getter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 @Getter
 public class TestConfig {
 
-    private static TestConfig instance;
+    private static volatile TestConfig instance;
+
+    private static final String SLO_BUDGET_PREFIX = "slo.budget.";
     private final Properties properties;
 
     private final String apiBaseUrl;
@@ -20,17 +28,136 @@ public class TestConfig {
     private final String adminPassword;
     private final String adminClientId;
 
+    private final boolean tokenRefreshEnabled;
+    private final int tokenRefreshAheadSeconds;
+
+    private final int httpPoolMaxTotal;
+    private final int httpPoolMaxPerRoute;
+    private final int httpConnectTimeoutMs;
+    private final int httpReadTimeoutMs;
+    private final int httpKeepAliveMs;
+    private final int httpCaptureSize;
+
+    private final int loadUsers;
+    private final int loadDurationSeconds;
+    private final int loadIterations;
+    private final String loadTags;
+
+    private final Long dataSeed;
+    private final int seedConcurrency;
+    private final int seedMaxRetries;
+
+    private final boolean userPoolEnabled;
+    private final int userPoolSize;
+    private final int userPoolLeaseTimeoutMs;
+
+    private final boolean warmupEnabled;
+    private final int warmupConnections;
+    private final int warmupRequests;
+    private final boolean warmupUserPool;
+
+    private final int readinessTimeoutSeconds;
+    private final int readinessTtlMs;
+
+    private final int paginationPageSize;
+    private final int crawlerConcurrency;
+    private final int crawlerAttempts;
+
+    private final boolean cleanupEnabled;
+    private final int cleanupConcurrency;
+    private final int cleanupTimeoutSeconds;
+
+    private final List<SloBudget> sloBudgets;
+    private final boolean sloEnforce;
+
+    private final boolean stubEnabled;
+    private final int stubPort;
+    private final int stubLatencyMs;
+    private final int stubLatencyJitterMs;
+    private final double stubErrorRate;
+    private final int stubTokenTtlSeconds;
+
+    private final String cassetteMode;
+    private final String cassetteDir;
+    private final String cassetteName;
+    private final boolean cassetteReplayLatency;
+
+    private final boolean schedulingLongestFirst;
+    private final String schedulingHistoryFile;
+    private final int schedulingDefaultEstimateMs;
+
     private TestConfig() {
         properties = new Properties();
         loadProperties();
-        this.apiBaseUrl = getProperty("api.base.url", "http://localhost:8080");
-        this.keycloakUrl = getProperty("keycloak.url", "http://localhost:8082");
+
+        // Con el stub hermético la API y Keycloak son el mismo servidor local
+        this.stubEnabled = getBooleanProperty("stub.enabled", false);
+        this.stubPort = getIntProperty("stub.port", 18080);
+        this.stubLatencyMs = getIntProperty("stub.latency.ms", 0);
+        this.stubLatencyJitterMs = getIntProperty("stub.latency.jitter.ms", 0);
+        this.stubErrorRate = getDoubleProperty("stub.error.rate", 0.0);
+        this.stubTokenTtlSeconds = getIntProperty("stub.token.ttl.seconds", 300);
+        String stubUrl = "http://localhost:" + stubPort;
+
+        this.apiBaseUrl = stubEnabled ? stubUrl : getProperty("api.base.url", "http://localhost:8080");
+        this.keycloakUrl = stubEnabled ? stubUrl : getProperty("keycloak.url", "http://localhost:8082");
         this.keycloakRealm = getProperty("keycloak.realm", "taller");
         this.keycloakClientId = getProperty("keycloak.client.id", "taller-api");
         this.keycloakClientSecret = getProperty("keycloak.client.secret", "jx34gvJ7Vo9UwxLwsbLa1K3C58ZbjrLh");
         this.adminUsername = getProperty("admin.username", "admin");
         this.adminPassword = getProperty("admin.password", "admin123");
         this.adminClientId = getProperty("admin.client.id", "admin-cli");
+
+        this.tokenRefreshEnabled = getBooleanProperty("token.refresh.enabled", true);
+        this.tokenRefreshAheadSeconds = getIntProperty("token.refresh.ahead.seconds", 30);
+
+        this.httpPoolMaxTotal = getIntProperty("http.pool.max.total", 50);
+        this.httpPoolMaxPerRoute = getIntProperty("http.pool.max.per.route", 20);
+        this.httpConnectTimeoutMs = getIntProperty("http.connect.timeout.ms", 5000);
+        this.httpReadTimeoutMs = getIntProperty("http.read.timeout.ms", 30000);
+        this.httpKeepAliveMs = getIntProperty("http.keepalive.ms", 30000);
+        this.httpCaptureSize = getIntProperty("http.capture.size", 20);
+
+        this.loadUsers = getIntProperty("load.users", 10);
+        this.loadDurationSeconds = getIntProperty("load.duration.seconds", 60);
+        this.loadIterations = getIntProperty("load.iterations", 0);
+        this.loadTags = getProperty("load.tags", "not @Ignore");
+
+        this.dataSeed = getLongProperty("data.seed");
+        this.seedConcurrency = getIntProperty("seed.concurrency", 16);
+        this.seedMaxRetries = getIntProperty("seed.max.retries", 3);
+
+        this.userPoolEnabled = getBooleanProperty("user.pool.enabled", true);
+        this.userPoolSize = getIntProperty("user.pool.size", 8);
+        this.userPoolLeaseTimeoutMs = getIntProperty("user.pool.lease.timeout.ms", 2000);
+
+        this.warmupEnabled = getBooleanProperty("warmup.enabled", true);
+        this.warmupConnections = getIntProperty("warmup.connections", 4);
+        this.warmupRequests = getIntProperty("warmup.requests", 20);
+        this.warmupUserPool = getBooleanProperty("warmup.user.pool", true);
+
+        this.readinessTimeoutSeconds = getIntProperty("readiness.timeout.seconds", 30);
+        this.readinessTtlMs = getIntProperty("readiness.ttl.ms", 10000);
+
+        this.paginationPageSize = getIntProperty("pagination.page.size", 500);
+        this.crawlerConcurrency = getIntProperty("crawler.concurrency", 4);
+        this.crawlerAttempts = getIntProperty("crawler.attempts", 3);
+
+        this.cleanupEnabled = getBooleanProperty("cleanup.enabled", true);
+        this.cleanupConcurrency = getIntProperty("cleanup.concurrency", 8);
+        this.cleanupTimeoutSeconds = getIntProperty("cleanup.timeout.seconds", 30);
+
+        this.sloBudgets = loadSloBudgets();
+        this.sloEnforce = getBooleanProperty("slo.enforce", false);
+
+        this.cassetteMode = getProperty("cassette.mode", "off").trim().toLowerCase(Locale.ROOT);
+        this.cassetteDir = getProperty("cassette.dir", "target/cassettes");
+        this.cassetteName = getProperty("cassette.name", "suite");
+        this.cassetteReplayLatency = getBooleanProperty("cassette.replay.latency", false);
+
+        this.schedulingLongestFirst = getBooleanProperty("scheduling.longest.first", true);
+        this.schedulingHistoryFile = getProperty("scheduling.history.file", ".test-history/scenario-durations.properties");
+        this.schedulingDefaultEstimateMs = getIntProperty("scheduling.default.estimate.ms", 2000);
     }
 
     public static TestConfig getInstance() {
@@ -69,6 +196,94 @@ public class TestConfig {
         return properties.getProperty(key, defaultValue);
     }
 
+    private int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value + " (se usa " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * null si la propiedad no está definida o no es un número.
+     */
+    private Long getLongProperty(String key) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value + " (se ignora)");
+            return null;
+        }
+    }
+
+    private double getDoubleProperty(String key, double defaultValue) {
+        String value = getProperty(key, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value + " (se usa " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    private boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key, null);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Lee las claves slo.budget.* de test.properties y de las propiedades del sistema
+     * (estas últimas tienen prioridad). Ejemplo: slo.budget.GET./api/usuarios=p95:800,p99:1500
+     */
+    private List<SloBudget> loadSloBudgets() {
+        Map<String, String> specs = new TreeMap<>();
+        for (Properties source : List.of(properties, System.getProperties())) {
+            for (String key : source.stringPropertyNames()) {
+                if (key.startsWith(SLO_BUDGET_PREFIX)) {
+                    specs.put(key, source.getProperty(key));
+                }
+            }
+        }
+
+        List<SloBudget> budgets = new ArrayList<>();
+        specs.forEach((key, spec) -> {
+            String target = key.substring(SLO_BUDGET_PREFIX.length());
+            int separator = target.indexOf('.');
+            if (separator <= 0 || separator == target.length() - 1) {
+                System.err.println("Clave de SLO inválida: " + key + " (formato: slo.budget.<MÉTODO>.<ruta>)");
+                return;
+            }
+            String endpoint = target.substring(0, separator).toUpperCase(Locale.ROOT) + " " + target.substring(separator + 1);
+
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split(":");
+                try {
+                    if (parts.length != 2 || !parts[0].trim().toLowerCase(Locale.ROOT).startsWith("p")) {
+                        throw new NumberFormatException();
+                    }
+                    double percentile = Double.parseDouble(parts[0].trim().substring(1));
+                    long maxMs = Long.parseLong(parts[1].trim());
+                    budgets.add(new SloBudget(endpoint, percentile, maxMs));
+                } catch (NumberFormatException e) {
+                    System.err.println("Valor inválido para " + key + ": " + entry + " (formato: p95:800)");
+                }
+            }
+        });
+        return Collections.unmodifiableList(budgets);
+    }
+
     public String getKeycloakTokenUrl() {
         return String.format("%s/realms/%s/protocol/openid-connect/token",
                 keycloakUrl, keycloakRealm);
@@ -84,6 +299,11 @@ public class TestConfig {
                 keycloakUrl, keycloakRealm);
     }
 
+    public String getKeycloakJwksUrl() {
+        return String.format("%s/realms/%s/protocol/openid-connect/certs",
+                keycloakUrl, keycloakRealm);
+    }
+
     public String getKeycloakLogoutUrl() {
         return String.format("%s/realms/%s/protocol/openid-connect/logout",
                 keycloakUrl, keycloakRealm);
@@ -1,19 +1,44 @@
 package co.edu.uniquindio.tests.hooks;
 
 import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.runner.LoadTestRunner;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import co.edu.uniquindio.tests.stub.StubServer;
+import co.edu.uniquindio.tests.support.ExchangeRecorder;
+import co.edu.uniquindio.tests.support.HttpTransport;
+import co.edu.uniquindio.tests.support.LatencyCorrelation;
+import co.edu.uniquindio.tests.support.LatencyRecorder;
+import co.edu.uniquindio.tests.support.MetricsSnapshot;
+import co.edu.uniquindio.tests.support.RequestMetrics;
 import co.edu.uniquindio.tests.support.ScenarioContext;
+import co.edu.uniquindio.tests.support.SchemaRegistry;
+import co.edu.uniquindio.tests.support.ServiceReadiness;
 import co.edu.uniquindio.tests.support.TokenClient;
+import co.edu.uniquindio.tests.support.UserCleanup;
+import co.edu.uniquindio.tests.support.UserPool;
+import co.edu.uniquindio.tests.support.WarmUp;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
 import io.cucumber.java.Scenario;
 import io.restassured.RestAssured;
-import io.restassured.config.LogConfig;
-import io.restassured.filter.log.LogDetail;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 @Slf4j
 public class Hooks {
 
+    private static boolean suiteConfigured;
+
+    // Métricas del servidor al empezar la corrida, para la correlación de latencias del final
+    private static MetricsSnapshot serverBaseline;
+
     private final TestConfig config;
     private final TokenClient tokenClient;
 
@@ -22,27 +47,137 @@ public class Hooks {
         this.tokenClient = TokenClient.getInstance();
     }
 
-    @Before
-    public void beforeScenario(Scenario scenario) {
-
+    /**
+     * Configuración global de RestAssured. Se ejecuta una sola vez por corrida
+     * (y no en cada escenario) porque {@link RestAssured} guarda su configuración
+     * en campos estáticos compartidos por todos los hilos de ejecución paralela.
+     * En modo carga cada iteración es una corrida nueva, así que debe ser idempotente; es
+     * synchronized para que las iteraciones concurrentes esperen a que termine la primera.
+     * Antes del primer escenario arranca el stub (stub.enabled), espera a que la API esté
+     * disponible y hace el calentamiento (token de admin, conexiones abiertas, pool de usuarios).
+     * Después del calentamiento toma la instantánea inicial de las métricas del servidor y
+     * reinicia las del cliente, para que la correlación compare solo el tráfico de los escenarios.
+     */
+    @BeforeAll
+    public static synchronized void beforeAll() {
+        if (suiteConfigured) {
+            return;
+        }
+        TestConfig config = TestConfig.getInstance();
         log.info("CONFIG RESUELTA:");
         log.info(" - apiBaseUrl = {}", config.getApiBaseUrl());
         log.info(" - keycloakUrl = {}", config.getKeycloakUrl());
         log.info(" - keycloakTokenUrl = {}", config.getKeycloakTokenUrl());
 
+        RestAssured.baseURI = config.getApiBaseUrl();
+        // Los JSON Schemas se compilan aquí, una vez, y no en el primer step que valida
+        SchemaRegistry.getInstance();
+        StubServer.startIfEnabled();
+        ServiceReadiness.getInstance().awaitReady();
+        WarmUp.run();
+        // Lado cliente y lado servidor de la correlación parten del mismo instante: las
+        // solicitudes del llenado del pool de usuarios tampoco cuentan del lado del cliente
+        serverBaseline = scrapeServerMetrics();
+        RequestMetrics.getInstance().reset();
+        // Si la API no estuvo disponible, la siguiente corrida (iteración) lo vuelve a intentar
+        suiteConfigured = true;
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        if (LoadTestRunner.isActive()) {
+            // El LoadTestRunner publica su propio resumen al terminar
+            return;
+        }
+        TokenClient.TokenCacheStats stats = TokenClient.getInstance().getStats();
+        log.info("Caché de tokens: hits={}, misses={}, renovaciones={}, fallos={}",
+                stats.getHits(), stats.getMisses(), stats.getRefreshes(), stats.getFailures());
+
+        HttpTransport.PoolMetrics pool = HttpTransport.getInstance().getPoolMetrics();
+        log.info("Pool HTTP: en uso={}, en espera={}, libres={}, máximo={}, pico en uso={}",
+                pool.getLeased(), pool.getPending(), pool.getAvailable(), pool.getMax(), pool.getPeakLeased());
+
+        UserPool.PoolStats users = UserPool.getInstance().getStats();
+        log.info("Pool de usuarios: préstamos={}, creados por demanda={}, reemplazados={}, libres={}",
+                users.getLeases(), users.getCreatedOnDemand(), users.getReplaced(), users.getAvailable());
+
+        RequestMetrics.getInstance().export(Path.of("target", "perf"));
+        reportLatencyCorrelation();
+        UserCleanup.getInstance().drainAll();
+        CassetteFilter.getInstance().save();
+        checkLatencyBudgets();
+    }
+
+    private static MetricsSnapshot scrapeServerMetrics() {
         try {
-            String t = tokenClient.getAdminToken();
-            log.info(" - admin token obtenido (longitud): {}", t != null ? t.length() : "null");
-        } catch (Exception e) {
-            log.warn(" - No se pudo obtener token admin: {}", e.getMessage());
+            return MetricsSnapshot.scrape();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer las métricas del servidor: {}", e.getMessage());
+            return null;
         }
+    }
+
+    /**
+     * Latencia del cliente frente a la del servidor por endpoint, en el log y en
+     * target/perf/latency-correlation.csv.
+     */
+    private static void reportLatencyCorrelation() {
+        MetricsSnapshot serverFinal = serverBaseline != null ? scrapeServerMetrics() : null;
+        if (serverFinal == null) {
+            return;
+        }
+        List<LatencyCorrelation.Row> rows = LatencyCorrelation.correlate(
+                RequestMetrics.getInstance().summarizeByEndpoint(), serverFinal.deltaSince(serverBaseline));
+        log.info("Latencia cliente vs servidor (promedios por solicitud):{}{}", System.lineSeparator(),
+                LatencyCorrelation.format(rows));
+        LatencyCorrelation.export(rows, Path.of("target", "perf"));
+    }
+
+    /**
+     * Evalúa los presupuestos slo.budget.* con las latencias de toda la corrida.
+     * Con slo.enforce=true un presupuesto superado hace fallar la corrida.
+     */
+    private static void checkLatencyBudgets() {
+        TestConfig config = TestConfig.getInstance();
+        List<String> violations = LatencyRecorder.getInstance().checkBudgets(config.getSloBudgets());
+        if (violations.isEmpty()) {
+            log.info("Presupuestos de latencia: {} evaluados, ninguno superado", config.getSloBudgets().size());
+            return;
+        }
+        violations.forEach(violation -> log.warn("Presupuesto de latencia superado: {}", violation));
+        if (config.isSloEnforce()) {
+            throw new RuntimeException("Presupuestos de latencia superados: " + String.join("; ", violations));
+        }
+    }
 
+    @Before
+    public void beforeScenario(Scenario scenario) {
         log.info("====== Iniciando escenario: {} ======", scenario.getName());
 
-        RestAssured.baseURI = config.getApiBaseUrl();
         ScenarioContext.clearAll();
+        ScenarioContext.trackTokenUsers(scenario.getSourceTagNames().contains("@CleanTokenCache"));
+        ExchangeRecorder.clear();
+        LatencyRecorder.getInstance().clearLast();
+        RequestMetrics.setScenarioTag(mostSpecificTag(scenario));
+        UserCleanup.getInstance().beginScenario();
+        CassetteFilter.getInstance().beginScenario(scenarioScope(scenario));
+    }
 
-        RestAssured.enableLoggingOfRequestAndResponseIfValidationFails(LogDetail.ALL);
+    /**
+     * Archivo del feature y línea del escenario: identifica al escenario en el cassette sin
+     * depender de si el feature se cargó del classpath o del sistema de archivos.
+     */
+    private static String scenarioScope(Scenario scenario) {
+        String uri = scenario.getUri().toString();
+        return uri.substring(uri.lastIndexOf('/') + 1) + ":" + scenario.getLine();
+    }
+
+    /**
+     * Último tag del escenario (los del feature van primero), p. ej. "@CrearUsuario".
+     */
+    private static String mostSpecificTag(Scenario scenario) {
+        List<String> tags = new ArrayList<>(scenario.getSourceTagNames());
+        return tags.isEmpty() ? null : tags.get(tags.size() - 1);
     }
 
     @After
@@ -53,14 +188,21 @@ public class Hooks {
         log.info("=".repeat(80));
 
         if (scenario.isFailed()) {
-            log.warn("Escenario falló, limpiando caché de tokens");
-            tokenClient.clearCache();
+            // Solo aquí se arma el detalle de las solicitudes/respuestas del escenario
+            String exchanges = ExchangeRecorder.render();
+            scenario.attach(exchanges.getBytes(StandardCharsets.UTF_8), "text/plain", "Intercambios HTTP");
+            log.warn("Últimos {} intercambios HTTP del escenario fallido:\n{}", ExchangeRecorder.size(), exchanges);
+
+            // Solo los tokens de este escenario: la caché la comparten los hilos en paralelo
+            Set<String> tokenUsers = ScenarioContext.getTokenUsers();
+            log.warn("Escenario falló, invalidando {} tokens del escenario", tokenUsers.size());
+            tokenUsers.forEach(tokenClient::invalidateToken);
         }
+        UserPool.getInstance().releaseLeased(scenario.isFailed());
+        UserCleanup.getInstance().endScenario();
+        CassetteFilter.getInstance().endScenario();
+        ExchangeRecorder.clear();
+        RequestMetrics.clearScenarioTag();
     }
 
-    @Before("@CleanTokenCache")
-    public void cleanTokenCache() {
-        log.debug("Limpiando caché de tokens por tag @CleanTokenCache");
-        tokenClient.clearCache();
-    }
 }
@@ -17,8 +17,6 @@ import static io.cucumber.junit.platform.engine.Constants.*;
                 "junit:target/cucumber-reports/cucumber.xml")
 @ConfigurationParameter(key = GLUE_PROPERTY_NAME,
         value = "co.edu.uniquindio.tests.steps,co.edu.uniquindio.tests.hooks")
-@ConfigurationParameter(key = FEATURES_PROPERTY_NAME,
-        value = "src/test/resources/features")
 @ConfigurationParameter(key = FILTER_TAGS_PROPERTY_NAME,
         value = "not @Ignore")
 public class CucumberTestRunner {
@@ -0,0 +1,42 @@
+package co.edu.uniquindio.tests.runner;
+
+import co.edu.uniquindio.tests.support.ScenarioDurationHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Al terminar la corrida, registra la duración de cada escenario del reporte JSON de
+ * Cucumber en el {@link ScenarioDurationHistory} para ordenar la próxima corrida paralela.
+ * Se registra por ServiceLoader en META-INF/services/org.junit.platform.launcher.TestExecutionListener.
+ */
+@Slf4j
+public class DurationHistoryListener implements TestExecutionListener {
+
+    private static final Path REPORT = Path.of("target", "cucumber-reports", "cucumber.json");
+
+    private long startedAtMillis;
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        startedAtMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        try {
+            // Un reporte anterior a esta corrida (p. ej. no se ejecutó Cucumber) no se vuelve a sumar
+            if (!Files.isRegularFile(REPORT) || Files.getLastModifiedTime(REPORT).toMillis() < startedAtMillis) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        int recorded = ScenarioDurationHistory.getInstance().recordFromCucumberJson(REPORT);
+        log.info("Historial de duraciones: {} escenarios registrados", recorded);
+    }
+}
@@ -0,0 +1,337 @@
+package co.edu.uniquindio.tests.runner;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import co.edu.uniquindio.tests.stub.StubServer;
+import co.edu.uniquindio.tests.support.HttpTransport;
+import co.edu.uniquindio.tests.support.LatencyCorrelation;
+import co.edu.uniquindio.tests.support.LatencyRecorder;
+import co.edu.uniquindio.tests.support.MetricsSnapshot;
+import co.edu.uniquindio.tests.support.RequestMetrics;
+import co.edu.uniquindio.tests.support.TokenClient;
+import co.edu.uniquindio.tests.support.UserCleanup;
+import co.edu.uniquindio.tests.support.UserPool;
+import io.cucumber.core.eventbus.EventBus;
+import io.cucumber.core.feature.FeatureParser;
+import io.cucumber.core.filter.Filters;
+import io.cucumber.core.gherkin.Feature;
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.core.options.CommandlineOptionsParser;
+import io.cucumber.core.options.CucumberProperties;
+import io.cucumber.core.options.CucumberPropertiesParser;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.runtime.BackendServiceLoader;
+import io.cucumber.core.runtime.CucumberExecutionContext;
+import io.cucumber.core.runtime.ExitStatus;
+import io.cucumber.core.runtime.FeaturePathFeatureSupplier;
+import io.cucumber.core.runtime.ObjectFactoryServiceLoader;
+import io.cucumber.core.runtime.ThreadLocalObjectFactorySupplier;
+import io.cucumber.core.runtime.ThreadLocalRunnerSupplier;
+import io.cucumber.core.runtime.TimeServiceEventBus;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseFinished;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Modo carga: reutiliza los mismos features y steps de la suite como generador de carga.
+ * <p>
+ * Cada usuario virtual ejecuta en bucle los escenarios seleccionados (load.tags), durante
+ * load.duration.seconds o load.iterations iteraciones por usuario. Los features se leen y
+ * filtran una sola vez, y cada usuario virtual reutiliza su propio Runner de Cucumber (glue
+ * y steps cargados una vez), sin plugins de consola: lo que se mide es la carga de los
+ * escenarios y no el arranque de Cucumber en cada iteración.
+ * Al final imprime throughput y latencias p50/p95/p99/max por endpoint, y las cruza con lo que
+ * el propio servidor registró en /actuator/prometheus durante la carga ({@link LatencyCorrelation}).
+ * <p>
+ * Usa hilos virtuales cuando la JVM los soporta (Java 21+) y un hilo de plataforma
+ * por usuario virtual en caso contrario.
+ * <pre>
+ * mvn -Pload test-compile exec:java -Dload.users=50 -Dload.duration.seconds=120 -Dload.tags=@usuarios
+ * </pre>
+ */
+public class LoadTestRunner {
+
+    private static final String GLUE_STEPS = "co.edu.uniquindio.tests.steps";
+    private static final String GLUE_HOOKS = "co.edu.uniquindio.tests.hooks";
+    private static final String FEATURES = "classpath:features";
+
+    private static volatile boolean active;
+
+    private static final LongAdder scenariosPassed = new LongAdder();
+    private static final LongAdder scenariosFailed = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        // Los logs por step saturan la consola con cientos de usuarios virtuales
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        }
+
+        TestConfig config = TestConfig.getInstance();
+        int users = Math.max(1, config.getLoadUsers());
+        int iterations = config.getLoadIterations();
+        long durationNanos = TimeUnit.SECONDS.toNanos(Math.max(1, config.getLoadDurationSeconds()));
+
+        System.out.printf("Modo carga: %d usuarios virtuales, %s, tags='%s'%n", users,
+                iterations > 0 ? iterations + " iteraciones por usuario" : config.getLoadDurationSeconds() + " s",
+                config.getLoadTags());
+
+        String[] argv = {
+                "--glue", GLUE_STEPS,
+                "--glue", GLUE_HOOKS,
+                "--tags", config.getLoadTags(),
+                FEATURES
+        };
+        Suite suite = Suite.load(argv);
+        System.out.printf("Escenarios por iteración: %d%n", suite.pickles.size());
+
+        // Con stub.enabled el stub queda arriba antes de que arranquen los usuarios virtuales
+        StubServer.startIfEnabled();
+
+        MetricsSnapshot serverBefore = scrapeServerMetrics();
+        active = true;
+        LatencyRecorder.getInstance().reset();
+        RequestMetrics.getInstance().reset();
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        AtomicInteger iterationsFailed = new AtomicInteger();
+
+        ExecutorService executor = newVirtualUserExecutor(users);
+        List<Future<?>> virtualUsers = new ArrayList<>(users);
+        try {
+            suite.start();
+            for (int user = 0; user < users; user++) {
+                virtualUsers.add(executor.submit(() -> {
+                    for (int i = 0; iterations > 0 ? i < iterations : System.nanoTime() < deadline; i++) {
+                        if (!suite.runIteration()) {
+                            iterationsFailed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> virtualUser : virtualUsers) {
+                virtualUser.get();
+            }
+            suite.finish();
+        } finally {
+            executor.shutdownNow();
+            active = false;
+        }
+
+        // Lado cliente y lado servidor de la correlación, tomados en el mismo instante
+        MetricsSnapshot serverAfter = serverBefore != null ? scrapeServerMetrics() : null;
+        Map<String, RequestMetrics.EndpointPhases> clientPhases = RequestMetrics.getInstance().summarizeByEndpoint();
+        printReport((System.nanoTime() - start) / 1e9, iterationsFailed.get());
+        if (serverAfter != null) {
+            printServerReport(clientPhases, serverAfter.deltaSince(serverBefore));
+        }
+        RequestMetrics.getInstance().export(Path.of("target", "perf"));
+
+        UserCleanup.CleanupReport cleanup = UserCleanup.getInstance().drainAll();
+        System.out.printf("Limpieza de usuarios: %d de %d eliminados en %d ms, %d sin eliminar%n",
+                cleanup.getDeleted(), cleanup.getTracked(), cleanup.getDurationMs(), cleanup.getRemaining().size());
+        CassetteFilter.getInstance().save();
+
+        List<String> violations = LatencyRecorder.getInstance().checkBudgets(config.getSloBudgets());
+        violations.forEach(violation -> System.out.println("Presupuesto de latencia superado: " + violation));
+        boolean sloFailed = config.isSloEnforce() && !violations.isEmpty();
+        System.exit(scenariosFailed.sum() > 0 || sloFailed ? 1 : 0);
+    }
+
+    /**
+     * Indica si la suite corre dentro del modo carga; los hooks de suite lo usan para
+     * no repetir en cada iteración lo que solo tiene sentido una vez por corrida.
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    private static ExecutorService newVirtualUserExecutor(int users) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(users, runnable -> {
+                Thread thread = new Thread(runnable, "usuario-virtual-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static void printReport(double elapsedSeconds, int iterationsFailed) {
+        long passed = scenariosPassed.sum();
+        long failed = scenariosFailed.sum();
+
+        System.out.println();
+        System.out.println("=".repeat(120));
+        System.out.printf(Locale.ROOT, "Duración: %.1f s | Escenarios: %d OK, %d fallidos (%.1f escenarios/s) | Iteraciones fallidas: %d%n",
+                elapsedSeconds, passed, failed, (passed + failed) / elapsedSeconds, iterationsFailed);
+        System.out.println("=".repeat(120));
+        System.out.printf(Locale.ROOT, "%-55s %9s %7s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Total", "Errores", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (LatencyRecorder.EndpointSummary summary : LatencyRecorder.getInstance().summarize()) {
+            System.out.printf(Locale.ROOT, "%-55s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    summary.getEndpoint(), summary.getCount(), summary.getErrors(),
+                    summary.getThroughputPerSecond(), summary.getP50Ms(), summary.getP95Ms(),
+                    summary.getP99Ms(), summary.getMaxMs());
+        }
+        System.out.println("=".repeat(120));
+
+        TokenClient.TokenCacheStats tokens = TokenClient.getInstance().getStats();
+        HttpTransport.PoolMetrics pool = HttpTransport.getInstance().getPoolMetrics();
+        System.out.printf("Caché de tokens: hits=%d, misses=%d, renovaciones=%d, fallos=%d | Pool HTTP: pico en uso=%d de %d%n",
+                tokens.getHits(), tokens.getMisses(), tokens.getRefreshes(), tokens.getFailures(),
+                pool.getPeakLeased(), pool.getMax());
+
+        UserPool.PoolStats users = UserPool.getInstance().getStats();
+        System.out.printf("Pool de usuarios: préstamos=%d, creados por demanda=%d, reemplazados=%d%n",
+                users.getLeases(), users.getCreatedOnDemand(), users.getReplaced());
+    }
+
+    /**
+     * Instantánea de las métricas del servidor; null si no se pudo leer (la carga sigue igual).
+     */
+    private static MetricsSnapshot scrapeServerMetrics() {
+        try {
+            return MetricsSnapshot.scrape();
+        } catch (RuntimeException e) {
+            System.out.println("No se pudieron leer las métricas del servidor: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void printServerReport(Map<String, RequestMetrics.EndpointPhases> clientPhases,
+                                          MetricsSnapshot.Delta delta) {
+        System.out.printf(Locale.ROOT, "Servidor (/actuator/prometheus): %d solicitudes, %d errores 5xx, %.1f req/s%n",
+                delta.requests(), delta.errors(), delta.rate());
+        List<LatencyCorrelation.Row> rows = LatencyCorrelation.correlate(clientPhases, delta);
+        System.out.print(LatencyCorrelation.format(rows));
+        if (delta.requests() > 0 && delta.percentileMs(50).isEmpty()) {
+            System.out.println("El servidor no publica buckets de latencia: habilite "
+                    + "management.metrics.distribution.percentiles-histogram.http.server.requests=true");
+        }
+        System.out.println("=".repeat(120));
+        LatencyCorrelation.export(rows, Path.of("target", "perf"));
+    }
+
+    /**
+     * Los escenarios seleccionados y el contexto de ejecución de Cucumber, armados una vez por
+     * corrida con las mismas opciones que el CLI (cucumber.properties, entorno, -D y argv).
+     */
+    private static final class Suite {
+
+        private final List<Pickle> pickles;
+        private final List<Feature> features;
+        private final CucumberExecutionContext context;
+
+        private Suite(List<Feature> features, List<Pickle> pickles, CucumberExecutionContext context) {
+            this.features = features;
+            this.pickles = pickles;
+            this.context = context;
+        }
+
+        static Suite load(String[] argv) {
+            RuntimeOptions fileOptions = new CucumberPropertiesParser()
+                    .parse(CucumberProperties.fromPropertiesFile())
+                    .build();
+            RuntimeOptions environmentOptions = new CucumberPropertiesParser()
+                    .parse(CucumberProperties.fromEnvironment())
+                    .build(fileOptions);
+            RuntimeOptions systemOptions = new CucumberPropertiesParser()
+                    .parse(CucumberProperties.fromSystemProperties())
+                    .build(environmentOptions);
+            RuntimeOptions options = new CommandlineOptionsParser(System.out)
+                    .parse(argv)
+                    .addDefaultGlueIfAbsent()
+                    .addDefaultFeaturePathIfAbsent()
+                    .build(systemOptions);
+
+            Supplier<ClassLoader> classLoader = LoadTestRunner.class::getClassLoader;
+            EventBus bus = new TimeServiceEventBus(Clock.systemUTC(), UUID::randomUUID);
+            ExitStatus exitStatus = new ExitStatus(options);
+            exitStatus.setEventPublisher(bus);
+            new IterationListener().setEventPublisher(bus);
+
+            List<Feature> features = new FeaturePathFeatureSupplier(classLoader, options, new FeatureParser(bus::generateId)).get();
+            Filters filters = new Filters(options);
+            List<Pickle> pickles = features.stream()
+                    .flatMap(feature -> feature.getPickles().stream())
+                    .filter(filters)
+                    .toList();
+
+            // Un Runner por hilo, como en la ejecución paralela de Cucumber: cada usuario
+            // virtual carga el glue una vez y lo reutiliza en todas sus iteraciones
+            ThreadLocalObjectFactorySupplier objectFactory = new ThreadLocalObjectFactorySupplier(
+                    new ObjectFactoryServiceLoader(classLoader, options));
+            ThreadLocalRunnerSupplier runners = new ThreadLocalRunnerSupplier(options, bus,
+                    new BackendServiceLoader(classLoader, objectFactory), objectFactory);
+            return new Suite(features, pickles, new CucumberExecutionContext(bus, exitStatus, runners));
+        }
+
+        void start() {
+            context.startTestRun();
+            features.forEach(context::beforeFeature);
+            context.runBeforeAllHooks();
+        }
+
+        /**
+         * Ejecuta todos los escenarios una vez en el hilo actual; false si alguno falló.
+         */
+        boolean runIteration() {
+            IterationListener.iterationFailed.set(false);
+            for (Pickle pickle : pickles) {
+                context.runTestCase(runner -> runner.runPickle(pickle));
+            }
+            return !IterationListener.iterationFailed.get();
+        }
+
+        void finish() {
+            context.runAfterAllHooks();
+            context.finishTestRun();
+        }
+    }
+
+    /**
+     * Cuenta los escenarios terminados; los eventos llegan en el hilo del usuario virtual que
+     * corrió el escenario, así que también marca si falló algo en su iteración actual.
+     */
+    private static class IterationListener implements ConcurrentEventListener {
+
+        private static final ThreadLocal<Boolean> iterationFailed = ThreadLocal.withInitial(() -> false);
+
+        @Override
+        public void setEventPublisher(EventPublisher publisher) {
+            publisher.registerHandlerFor(TestCaseFinished.class, event -> {
+                if (event.getResult().getStatus() == Status.PASSED) {
+                    scenariosPassed.increment();
+                } else {
+                    scenariosFailed.increment();
+                    iterationFailed.set(true);
+                    // Sin el resumen del CLI, una línea por escenario fallido
+                    Throwable error = event.getResult().getError();
+                    System.out.printf("Escenario fallido: %s:%d %s%s%n", event.getTestCase().getUri(),
+                            event.getTestCase().getLocation().getLine(), event.getTestCase().getName(),
+                            error != null ? " (" + error + ")" : "");
+                }
+            });
+        }
+    }
+}
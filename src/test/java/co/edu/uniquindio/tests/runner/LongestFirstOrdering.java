@@ -0,0 +1,152 @@
+package co.edu.uniquindio.tests.runner;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.support.ScenarioDurationHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.FilePosition;
+import org.junit.platform.engine.support.descriptor.FileSource;
+import org.junit.platform.launcher.EngineFilter;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.LauncherSessionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherConfig;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Con ejecución paralela, pasa a Cucumber los escenarios de cada feature ordenados de mayor a
+ * menor duración según el {@link ScenarioDurationHistory}: dentro de un feature los escenarios
+ * largos arrancan primero y los cortos rellenan los hilos que se van liberando.
+ * <p>
+ * El orden solo vale dentro de cada feature: se entrega por cucumber.features como lista de
+ * "archivo.feature:línea", y el motor de Cucumber ordena esa lista por archivo, así que los
+ * features siempre arrancan por ruta. Un escenario largo de un feature que va último (p. ej.
+ * usuarios.feature) puede seguir arrancando tarde. No descarta nada: la lista incluye todos
+ * los escenarios descubiertos. Sin historial, en ejecución secuencial o con cucumber.features
+ * pasado por -D se mantiene el orden de los archivos. Se registra por ServiceLoader en
+ * META-INF/services/org.junit.platform.launcher.LauncherSessionListener.
+ */
+@Slf4j
+public class LongestFirstOrdering implements LauncherSessionListener {
+
+    private static final String PARALLEL_ENABLED = "cucumber.execution.parallel.enabled";
+    private static final String FEATURES = "cucumber.features";
+
+    // Surefire descubre los tests dos veces (conteo y ejecución); el orden se informa una vez
+    private static final AtomicBoolean orderLogged = new AtomicBoolean();
+
+    private boolean featuresSet;
+
+    @Override
+    public void launcherSessionOpened(LauncherSession session) {
+        if (System.getProperty(FEATURES) != null || !isParallelExecution()
+                || !TestConfig.getInstance().isSchedulingLongestFirst()) {
+            return;
+        }
+        ScenarioDurationHistory history = ScenarioDurationHistory.getInstance();
+        if (history.isEmpty()) {
+            log.info("Orden por duración: sin historial, se mantiene el orden de los archivos");
+            return;
+        }
+        List<Scenario> scenarios = discoverScenarios(platformProperty(FEATURES, "src/test/resources/features"));
+        if (scenarios.isEmpty()) {
+            return;
+        }
+        scenarios.sort(Comparator.comparingDouble((Scenario scenario) -> history.estimateMs(scenario.key)).reversed());
+        System.setProperty(FEATURES, scenarios.stream().map(Scenario::location).collect(Collectors.joining(",")));
+        featuresSet = true;
+        if (orderLogged.compareAndSet(false, true)) {
+            log.info("Orden por duración dentro de cada feature (con historial): {}", scenarios.stream()
+                    .map(scenario -> scenario.key + String.format(Locale.ROOT, " ~%.0f ms", history.estimateMs(scenario.key)))
+                    .toList());
+        }
+    }
+
+    @Override
+    public void launcherSessionClosed(LauncherSession session) {
+        if (featuresSet) {
+            System.clearProperty(FEATURES);
+            featuresSet = false;
+        }
+    }
+
+    /**
+     * Escenarios (y filas de Examples) de los features, con el mismo descubrimiento del motor
+     * de Cucumber. El launcher interno no carga listeners para no volver a entrar aquí.
+     */
+    private static List<Scenario> discoverScenarios(String features) {
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .configurationParameter(FEATURES, features)
+                .filters(EngineFilter.includeEngines("cucumber"))
+                .build();
+        TestPlan plan = LauncherFactory.create(LauncherConfig.builder()
+                        .enableLauncherSessionListenerAutoRegistration(false)
+                        .enableLauncherDiscoveryListenerAutoRegistration(false)
+                        .enablePostDiscoveryFilterAutoRegistration(false)
+                        .enableTestExecutionListenerAutoRegistration(false)
+                        .build())
+                .discover(request);
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (TestIdentifier root : plan.getRoots()) {
+            for (TestIdentifier test : plan.getDescendants(root)) {
+                if (test.isTest()) {
+                    scenario(test.getSource()).ifPresent(scenarios::add);
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static Optional<Scenario> scenario(Optional<TestSource> source) {
+        if (source.isEmpty() || !(source.get() instanceof FileSource file) || file.getPosition().isEmpty()) {
+            return Optional.empty();
+        }
+        Path path = Path.of("").toAbsolutePath().relativize(file.getFile().toPath().toAbsolutePath());
+        int line = file.getPosition().map(FilePosition::getLine).get();
+        String location = path.toString().replace('\\', '/');
+        return Optional.of(new Scenario(ScenarioDurationHistory.scenarioKey(location, line), location + ":" + line));
+    }
+
+    /**
+     * cucumber.execution.parallel.enabled por -D o en junit-platform.properties.
+     */
+    private static boolean isParallelExecution() {
+        return Boolean.parseBoolean(platformProperty(PARALLEL_ENABLED, "false").trim());
+    }
+
+    private static String platformProperty(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value != null) {
+            return value;
+        }
+        Properties platform = new Properties();
+        try (InputStream input = LongestFirstOrdering.class.getClassLoader()
+                .getResourceAsStream("junit-platform.properties")) {
+            if (input != null) {
+                platform.load(input);
+            }
+        } catch (IOException e) {
+            log.debug("No se pudo leer junit-platform.properties: {}", e.getMessage());
+        }
+        return platform.getProperty(key, defaultValue);
+    }
+
+    private record Scenario(String key, String location) {
+    }
+}
@@ -2,16 +2,29 @@ package co.edu.uniquindio.tests.steps;
 
 import co.edu.uniquindio.tests.config.TestConfig;
 import co.edu.uniquindio.tests.support.ApiClient;
+import co.edu.uniquindio.tests.support.HttpTransport;
+import co.edu.uniquindio.tests.support.MetricsSnapshot;
+import co.edu.uniquindio.tests.support.PrometheusParser;
 import co.edu.uniquindio.tests.support.ScenarioContext;
+import co.edu.uniquindio.tests.support.ServiceReadiness;
 import co.edu.uniquindio.tests.support.TokenClient;
 import io.cucumber.java.es.*;
 import io.restassured.response.Response;
 import lombok.extern.slf4j.Slf4j;
 
-import static io.restassured.RestAssured.given; // 👈 Asegúrate de tener esta importación
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.OptionalDouble;
+import java.util.Set;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
 
 @Slf4j
@@ -21,6 +34,8 @@ public class ObservabilidadSteps {
     private final ApiClient apiClient;
     private final TokenClient tokenClient;
     private String userToken;
+    private MetricsSnapshot metricsBefore;
+    private MetricsSnapshot.Delta metricsDelta;
 
     public ObservabilidadSteps() {
         this.config = TestConfig.getInstance();
@@ -32,17 +47,14 @@ public class ObservabilidadSteps {
 
     @Dado("que los servicios del sistema están desplegados")
     public void serviciosDesplegados() {
-        Response healthCheck = apiClient.get(config.getHealthEndpoint());
-        ScenarioContext.setResponse(healthCheck);
-        assertThat("Servicio disponible", healthCheck.statusCode(), is(200));
+        assertThat("Servicio disponible", ServiceReadiness.getInstance().isReady(), is(true));
         log.info("✓ Servicios desplegados");
     }
 
     @Cuando("envío una solicitud al endpoint de health")
     public void envioUnaSolicitudAlEndpointDeHealth() {
-        // El paso 'Dado que los servicios del sistema están desplegados' ya hace la llamada
-        // al endpoint /actuator/health y guarda la respuesta.
-        // Si quieres forzar una nueva llamada aquí:
+        // El paso 'Dado que los servicios del sistema están desplegados' solo consulta la
+        // disponibilidad en caché (ServiceReadiness); aquí el health es lo que se prueba:
         Response healthCheck = apiClient.get(config.getHealthEndpoint());
         ScenarioContext.setResponse(healthCheck);
     }
@@ -61,7 +73,8 @@ public class ObservabilidadSteps {
         // FIX: La API de Prometheus requiere el header Accept: text/plain
         // para evitar el error 406 Not Acceptable.
         // ====================================================================
-        Response apiResponse = given()
+        // Por el transporte compartido: pool de conexiones, métricas y cassettes
+        Response apiResponse = HttpTransport.getInstance().request()
                 .header("Authorization", "Bearer " + userToken)
                 // Solicitamos el tipo de contenido estándar de Prometheus
                 .header("Accept", "text/plain;version=0.0.4;charset=utf-8")
@@ -79,8 +92,67 @@ public class ObservabilidadSteps {
         Response responseFromContext = ScenarioContext.getResponse();
         // Verificar que el contenido sea texto plano de métricas
         assertThat("Formato Prometheus (texto plano)", responseFromContext.contentType(), containsString("text/plain"));
+        // El parser valida cada línea: una línea mal formada falla con su número
+        Set<String> families = new HashSet<>();
+        long samples = PrometheusParser.parse(new ByteArrayInputStream(responseFromContext.asByteArray()),
+                sample -> families.add(sample.getName()));
+        assertThat("Muestras de métricas", samples, greaterThan(0L));
         // Buscar una métrica común para verificar el contenido
-        assertThat("Contenido de Métricas (ej. JVM)", responseFromContext.asString(), containsString("jvm_memory_used_bytes"));
-        log.info("✓ Formato Prometheus OK");
+        assertThat("Contenido de Métricas (ej. JVM)", families, hasItem("jvm_memory_used_bytes"));
+        log.info("✓ Formato Prometheus OK ({} muestras)", samples);
+    }
+
+    @Dado("que tomo una instantánea de las métricas del servidor")
+    public void tomoInstantaneaInicial() {
+        metricsBefore = MetricsSnapshot.scrape();
+        log.info("✓ Instantánea inicial: {} series", metricsBefore.size());
+    }
+
+    @Cuando("envío {int} solicitudes al listado de usuarios")
+    public void envioSolicitudesAlListado(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            Response response = apiClient.getAuthenticated(config.getUsersEndpoint(), userToken);
+            assertThat("Status del listado de usuarios", response.statusCode(), is(200));
+        }
+        log.info("✓ {} solicitudes al listado de usuarios", cantidad);
+    }
+
+    @Cuando("tomo otra instantánea de las métricas del servidor")
+    public void tomoInstantaneaFinal() {
+        assertThat("Instantánea inicial de métricas", metricsBefore, notNullValue());
+        metricsDelta = MetricsSnapshot.scrape().deltaSince(metricsBefore);
+        log.info("✓ Servidor entre instantáneas: {} solicitudes, {} errores 5xx, {} req/s",
+                metricsDelta.requests(), metricsDelta.errors(), String.format("%.1f", metricsDelta.rate()));
+    }
+
+    @Entonces("el servidor debe haber atendido al menos {int} solicitudes")
+    public void servidorAtendioSolicitudes(int minimo) {
+        assertThat("Solicitudes registradas por el servidor", listadoUsuarios().getCount(), greaterThanOrEqualTo((long) minimo));
+    }
+
+    @Entonces("el servidor no debe registrar errores 5xx")
+    public void servidorSinErrores() {
+        assertThat("Errores 5xx registrados por el servidor", listadoUsuarios().getErrors(), is(0L));
+    }
+
+    @Entonces("el percentil {int} de latencia del servidor debe ser menor a {int} ms")
+    public void percentilServidor(int percentil, int maximoMs) {
+        OptionalDouble latency = listadoUsuarios().percentileMs(percentil);
+        assertThat("El servidor no publica buckets de http_server_requests_seconds "
+                + "(management.metrics.distribution.percentiles-histogram)", latency.isPresent(), is(true));
+        assertThat("p" + percentil + " del servidor (ms)", latency.getAsDouble(), lessThan((double) maximoMs));
+        log.info("✓ p{} del servidor: {} ms", percentil, String.format("%.1f", latency.getAsDouble()));
+    }
+
+    /**
+     * Lo que el servidor registró para GET /api/usuarios entre las dos instantáneas: en paralelo
+     * o en el entorno compartido, las solicitudes de otros endpoints y clientes no cuentan.
+     */
+    private MetricsSnapshot.EndpointStats listadoUsuarios() {
+        assertThat("Instantánea final de métricas", metricsDelta, notNullValue());
+        String endpoint = "GET " + URI.create(config.getUsersEndpoint()).getPath();
+        MetricsSnapshot.EndpointStats stats = metricsDelta.getEndpoints().get(endpoint);
+        assertThat("Métricas del servidor para " + endpoint, stats, notNullValue());
+        return stats;
     }
-}
\ No newline at end of file
+}
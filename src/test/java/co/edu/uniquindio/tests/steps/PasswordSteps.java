@@ -2,9 +2,13 @@ package co.edu.uniquindio.tests.steps;
 
 import co.edu.uniquindio.tests.config.TestConfig;
 import co.edu.uniquindio.tests.support.ApiClient;
+import co.edu.uniquindio.tests.support.ResponseView;
 import co.edu.uniquindio.tests.support.ScenarioContext;
+import co.edu.uniquindio.tests.support.SchemaRegistry;
+import co.edu.uniquindio.tests.support.SchemaRegistry.Schema;
+import co.edu.uniquindio.tests.support.ServiceReadiness;
 import co.edu.uniquindio.tests.support.TokenClient;
-import co.edu.uniquindio.tests.utils.UsersData; // Importar UsersData
+import co.edu.uniquindio.tests.support.UserPool;
 import io.cucumber.java.es.*;
 import io.restassured.response.Response;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +23,7 @@ import static org.hamcrest.Matchers.*;
 public class PasswordSteps {
 
     // Claves para el Contexto
+    private static final String TEMP_USER = "tempUser";
     private static final String TEMP_USER_TOKEN = "tempUserToken";
     private static final String TEMP_USER_EMAIL = "tempUserEmail";
     private static final String CURRENT_PASS = "currentPassword";
@@ -37,9 +42,7 @@ public class PasswordSteps {
 
     @Dado("que el servicio de gestión de contraseñas está disponible")
     public void servicioPasswordDisponible() {
-        Response healthCheck = apiClient.get(config.getHealthEndpoint());
-        ScenarioContext.setResponse(healthCheck); // Guardar respuesta
-        assertThat("Servicio OK", healthCheck.statusCode(), is(200));
+        assertThat("Servicio OK", ServiceReadiness.getInstance().isReady(), is(true));
         log.info("✓ Servicio password OK");
     }
 
@@ -47,39 +50,23 @@ public class PasswordSteps {
 
     @Dado("que creo un usuario temporal para la prueba de contraseña")
     public void creo_un_usuario_temporal_para_la_prueba_de_contraseña() {
-        // 1. Obtener token de admin para crear el usuario
-        String adminToken = tokenClient.getAdminToken();
-
-        // 2. Generar datos de usuario
-        UsersData.UserTestData tempUser = UsersData.generateRandomUser();
-        Map<String, Object> userData = UsersData.userToMap(tempUser);
-
-        // 3. Crear el usuario vía API (esto lo guarda en la DB local y en Keycloak)
-        Response createResponse = apiClient.postAuthenticated(
-                config.getUsersEndpoint(),
-                userData,
-                adminToken
-        );
+        // El usuario sale del pool ya creado (en la DB local y en Keycloak) y con su token en caché
+        UserPool.PooledUser tempUser = UserPool.getInstance().lease();
 
-        // 4. Verificar que se creó (201)
-        assertThat("El usuario temporal debe crearse", createResponse.statusCode(), is(201));
-
-        // 5. Guardar los datos en el contexto para los siguientes pasos
+        // Guardar los datos en el contexto para los siguientes pasos
+        ScenarioContext.store(TEMP_USER, tempUser);
         ScenarioContext.store(TEMP_USER_EMAIL, tempUser.getEmail());
         ScenarioContext.store(CURRENT_PASS, tempUser.getPassword());
 
-        log.info("✓ Usuario temporal creado: {}", tempUser.getEmail());
+        log.info("✓ Usuario temporal: {}", tempUser.getEmail());
     }
 
     @Dado("que inicio sesión como el usuario temporal para obtener su token")
     public void inicio_sesión_como_el_usuario_temporal_para_obtener_su_token() {
-        String email = ScenarioContext.get(TEMP_USER_EMAIL);
-        String password = ScenarioContext.get(CURRENT_PASS);
+        UserPool.PooledUser tempUser = ScenarioContext.get(TEMP_USER);
 
-        // 1. Obtener el token del *nuevo* usuario
-        // Limpiamos la caché por si acaso, para forzar un nuevo login
-        tokenClient.clearCache();
-        String userToken = tokenClient.getToken(email, password);
+        // 1. Obtener el token del usuario temporal (el pool ya inició sesión con él)
+        String userToken = tempUser.getToken();
         assertThat("Token del usuario temporal no debe ser nulo", userToken, notNullValue());
 
         // 2. Guardar el token en el contexto
@@ -115,6 +102,13 @@ public class PasswordSteps {
         Response apiResponse = apiClient.putAuthenticated(
                 config.getPasswordEndpoint(), data, userToken);
         ScenarioContext.setResponse(apiResponse); // Guardar respuesta
+
+        // Salvo un rechazo (4xx) la contraseña pudo cambiar: el usuario no vuelve al pool
+        UserPool.PooledUser tempUser = ScenarioContext.get(TEMP_USER);
+        int status = apiResponse.statusCode();
+        if (tempUser != null && (status < 400 || status >= 500)) {
+            UserPool.getInstance().markDirty(tempUser);
+        }
         log.info("✓ Solicitud de cambio de contraseña enviada");
     }
 
@@ -123,8 +117,8 @@ public class PasswordSteps {
         String email = ScenarioContext.get(TEMP_USER_EMAIL);
         String newPassword = ScenarioContext.get(NEW_PASS);
 
-        // Forzar al TokenClient a no usar caché
-        tokenClient.clearCache();
+        // Forzar al TokenClient a no usar caché para este usuario
+        tokenClient.invalidateToken(email);
 
         // Intentar obtener token con la *nueva* contraseña
         String newToken = tokenClient.getToken(email, newPassword);
@@ -146,8 +140,7 @@ public class PasswordSteps {
 
     @Entonces("debo recibir un mensaje de confirmación")
     public void mensajeConfirmacion() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("mensaje");
+        String message = ScenarioContext.getResponseView().getString("mensaje");
         assertThat("Mensaje", message, notNullValue());
         assertThat("Mensaje de éxito", message, containsStringIgnoringCase("actualizada"));
         log.info("✓ Confirmación OK");
@@ -155,8 +148,9 @@ public class PasswordSteps {
 
     @Entonces("debo recibir un mensaje indicando contraseña actual incorrecta")
     public void mensajePasswordIncorrecta() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("mensaje");
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Esquema de error", SchemaRegistry.getInstance().validate(Schema.ERROR, body.root()), empty());
+        String message = body.getString("mensaje");
         assertThat("Mensaje error", message, notNullValue());
         assertThat("Mensaje de error", message, containsStringIgnoringCase("incorrecta"));
         log.info("✓ Mensaje de contraseña incorrecta OK");
@@ -3,7 +3,11 @@ package co.edu.uniquindio.tests.steps;
 import co.edu.uniquindio.tests.config.TestConfig;
 import co.edu.uniquindio.tests.support.ApiClient;
 import co.edu.uniquindio.tests.support.ScenarioContext;
+import co.edu.uniquindio.tests.support.SchemaRegistry;
+import co.edu.uniquindio.tests.support.SchemaRegistry.Schema;
+import co.edu.uniquindio.tests.support.ServiceReadiness;
 import co.edu.uniquindio.tests.support.TokenClient;
+import co.edu.uniquindio.tests.support.UserPool;
 import co.edu.uniquindio.tests.utils.UsersData;
 import io.cucumber.java.es.*;
 import io.restassured.response.Response;
@@ -21,11 +25,10 @@ public class PerfilesSteps {
     private final ApiClient apiClient;
     private final TokenClient tokenClient;
 
-    // ⬇️ --- MODIFICADO --- ⬇️
-    // Cambiamos userId por adminToken.
-    // Necesitamos el token para que el Gateway pueda extraer el 'sub' (userId)
-    private String adminToken;
-    // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
+    // Necesitamos el token para que el Gateway pueda extraer el 'sub' (userId).
+    // Es el de un usuario prestado por el UserPool: cada escenario trabaja sobre un perfil propio
+    private UserPool.PooledUser user;
+    private String userToken;
 
     private UsersData.ProfileTestData profileData;
     private Map<String, Object> profileMap;
@@ -38,24 +41,19 @@ public class PerfilesSteps {
 
     @Dado("que el servicio de perfiles está disponible")
     public void servicioPerfilesDisponible() {
-        // ⬇️ --- MODIFICADO --- ⬇️
-        // Hacemos ping al endpoint de health del API Gateway (o del servicio principal)
-        // ya que es un prerrequisito para que la ruta de perfiles funcione.
-        Response healthCheck = apiClient.get(config.getHealthEndpoint());
-        ScenarioContext.setResponse(healthCheck); // Guardar respuesta
-        assertThat("API Gateway (prerrequisito) disponible", healthCheck.statusCode(), is(200));
+        // El health del API Gateway (o del servicio principal) es un prerrequisito
+        // para que la ruta de perfiles funcione; se consulta a lo sumo una vez por readiness.ttl.ms
+        assertThat("API Gateway (prerrequisito) disponible", ServiceReadiness.getInstance().isReady(), is(true));
         log.info("✓ Prerrequisito (API Gateway) OK");
-        // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
     }
 
     @Dado("que tengo un usuario autenticado en el sistema")
     public void usuarioAutenticado() {
-        // ⬇️ --- MODIFICADO --- ⬇️
-        // Obtenemos el Token de admin, no el UserID
-        this.adminToken = tokenClient.getAdminToken();
-        assertThat("Token de admin", adminToken, notNullValue());
+        // El pool ya inició sesión con el usuario: su token está en caché
+        this.user = UserPool.getInstance().lease();
+        this.userToken = user.getToken();
+        assertThat("Token del usuario", userToken, notNullValue());
         log.info("✓ Usuario autenticado (token obtenido)");
-        // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
     }
 
     @Dado("que tengo datos válidos de un perfil nuevo")
@@ -73,7 +71,7 @@ public class PerfilesSteps {
         // ⬇️ --- MODIFICADO --- ⬇️
         // Usamos el método autenticado estándar (con token)
         Response creationResponse = apiClient.putAuthenticated(
-                config.getProfilesEndpoint(), profileMap, adminToken);
+                config.getProfilesEndpoint(), profileMap, userToken);
         // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
 
         ScenarioContext.setResponse(creationResponse);
@@ -94,7 +92,7 @@ public class PerfilesSteps {
         // ⬇️ --- MODIFICADO --- ⬇️
         // Usamos el método autenticado estándar (con token)
         Response apiResponse = apiClient.putAuthenticated(
-                config.getProfilesEndpoint(), profileMap, adminToken);
+                config.getProfilesEndpoint(), profileMap, userToken);
         ScenarioContext.setResponse(apiResponse); // Guardar respuesta
         log.info("✓ Crear/Actualizar perfil (enviando PUT a Gateway)");
         // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
@@ -105,7 +103,7 @@ public class PerfilesSteps {
         // ⬇️ --- MODIFICADO --- ⬇️
         // Usamos el método autenticado estándar (con token)
         Response apiResponse = apiClient.getAuthenticated(
-                config.getProfilesEndpoint(), adminToken);
+                config.getProfilesEndpoint(), userToken);
         ScenarioContext.setResponse(apiResponse); // Guardar respuesta
         log.info("✓ Obtener perfil (vía Gateway)");
         // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
@@ -116,7 +114,7 @@ public class PerfilesSteps {
         // ⬇️ --- MODIFICADO --- ⬇️
         // Usamos el método autenticado estándar (con token)
         Response apiResponse = apiClient.putAuthenticated(
-                config.getProfilesEndpoint(), profileMap, adminToken);
+                config.getProfilesEndpoint(), profileMap, userToken);
         ScenarioContext.setResponse(apiResponse); // Guardar respuesta
         log.info("✓ Actualizar perfil (vía Gateway)");
         // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
@@ -124,13 +122,12 @@ public class PerfilesSteps {
 
     @Entonces("el perfil debe ser creado exitosamente")
     public void perfilCreadoExitosamente() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String id = responseFromContext.jsonPath().getString("userId");
+        String id = ScenarioContext.getResponseView().getString("userId");
         assertThat("Perfil creado (userId no nulo)", id, notNullValue());
 
         // ⬇️ --- MODIFICADO --- ⬇️
         // Verificamos que el ID del perfil coincida con el ID del token que usamos.
-        String expectedUserId = tokenClient.getAdminUserId(); // Obtenemos el ID real del token
+        String expectedUserId = tokenClient.getUserId(user.getEmail(), user.getPassword()); // ID real del token
         assertThat("ID coincide con el token", id, is(expectedUserId));
         log.info("✓ Perfil ID: {}", id);
         // ⬆️ --- FIN DE LA MODIFICACIÓN --- ⬆️
@@ -138,22 +135,20 @@ public class PerfilesSteps {
 
     @Entonces("la respuesta debe cumplir con el esquema de perfil")
     public void respuestaCumpleEsquemaPerfil() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        assertThat("Tiene apodo", responseFromContext.jsonPath().get("apodo"), notNullValue());
+        assertThat("Esquema de perfil",
+                SchemaRegistry.getInstance().validate(Schema.PROFILE, ScenarioContext.getResponseView().root()), empty());
         log.info("✓ Esquema perfil OK");
     }
 
     @Entonces("debo recibir los datos de mi perfil")
     public void datosDelPerfil() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        assertThat("Datos perfil", responseFromContext.jsonPath().get("apodo"), notNullValue());
+        assertThat("Datos perfil", ScenarioContext.getResponseView().get("apodo"), notNullValue());
         log.info("✓ Datos perfil OK");
     }
 
     @Entonces("el perfil debe actualizarse con los nuevos datos")
     public void perfilActualizado() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String apodo = responseFromContext.jsonPath().getString("apodo");
+        String apodo = ScenarioContext.getResponseView().getString("apodo");
         assertThat("Actualizado", apodo, notNullValue());
         log.info("✓ Perfil actualizado");
     }
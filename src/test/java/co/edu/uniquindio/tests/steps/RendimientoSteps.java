@@ -0,0 +1,43 @@
+package co.edu.uniquindio.tests.steps;
+
+import co.edu.uniquindio.tests.config.SloBudget;
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.support.LatencyRecorder;
+import co.edu.uniquindio.tests.support.ScenarioContext;
+import io.cucumber.java.es.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@Slf4j
+public class RendimientoSteps {
+
+    private final TestConfig config;
+    private final LatencyRecorder latencyRecorder;
+
+    public RendimientoSteps() {
+        this.config = TestConfig.getInstance();
+        this.latencyRecorder = LatencyRecorder.getInstance();
+    }
+
+    @Entonces("la respuesta debe llegar en menos de {int} ms")
+    public void respuestaEnMenosDe(int maxMs) {
+        // La duración guardada con la respuesta: otras solicitudes del hilo (tokens,
+        // limpieza) no la reemplazan
+        double durationMs = ScenarioContext.getResponseTimeMs();
+        assertThat("El escenario debe haber recibido una respuesta", durationMs, greaterThanOrEqualTo(0.0));
+        assertThat("Latencia de la respuesta (ms)", durationMs, lessThan((double) maxMs));
+        log.info("✓ Respuesta en {} ms (máximo {} ms)", String.format("%.1f", durationMs), maxMs);
+    }
+
+    @Entonces("los endpoints deben cumplir sus presupuestos de latencia")
+    public void endpointsCumplenPresupuestos() {
+        List<SloBudget> budgets = config.getSloBudgets();
+        List<String> violations = latencyRecorder.checkBudgets(budgets);
+        assertThat("Presupuestos de latencia superados", violations, empty());
+        log.info("✓ {} presupuestos de latencia OK", budgets.size());
+    }
+}
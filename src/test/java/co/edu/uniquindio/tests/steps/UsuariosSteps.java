@@ -2,13 +2,25 @@ package co.edu.uniquindio.tests.steps;
 
 import co.edu.uniquindio.tests.config.TestConfig;
 import co.edu.uniquindio.tests.support.ApiClient;
+import co.edu.uniquindio.tests.support.PaginationCrawler;
+import co.edu.uniquindio.tests.support.ResponseView;
 import co.edu.uniquindio.tests.support.ScenarioContext;
+import co.edu.uniquindio.tests.support.SchemaRegistry;
+import co.edu.uniquindio.tests.support.SchemaRegistry.Schema;
+import co.edu.uniquindio.tests.support.ServiceReadiness;
 import co.edu.uniquindio.tests.support.TokenClient;
+import co.edu.uniquindio.tests.support.UserCleanup;
+import co.edu.uniquindio.tests.support.UserPageIterator;
+import co.edu.uniquindio.tests.support.UserPool;
+import co.edu.uniquindio.tests.support.UserSeeder;
 import co.edu.uniquindio.tests.utils.UsersData;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import io.cucumber.java.es.*;
 import io.restassured.response.Response;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,9 +31,14 @@ import static org.hamcrest.Matchers.*;
 @Slf4j
 public class UsuariosSteps {
 
+    // Claves del ScenarioContext
+    private static final String SEEDED_USER_IDS = "seededUserIds";
+    private static final String CRAWL_REPORT = "crawlReport";
+
     private final TestConfig config;
     private final ApiClient apiClient;
     private final TokenClient tokenClient;
+    private final SchemaRegistry schemas;
     private String adminToken;
     private String userToken;
     private UsersData.UserTestData testUser;
@@ -29,18 +46,19 @@ public class UsuariosSteps {
     private Map<String, Object> userData;
     private String createdUserId;
     private String existingUserId;
+    // Usuario prestado por el UserPool; el hook @After lo devuelve
+    private UserPool.PooledUser leasedUser;
 
     public UsuariosSteps() {
         this.config = TestConfig.getInstance();
         this.apiClient = ApiClient.getInstance();
         this.tokenClient = TokenClient.getInstance();
+        this.schemas = SchemaRegistry.getInstance();
     }
 
     @Dado("que el servicio de usuarios está disponible")
     public void servicioUsuariosDisponible() {
-        Response healthCheck = apiClient.get(config.getHealthEndpoint());
-        ScenarioContext.setResponse(healthCheck);
-        assertThat("Servicio no disponible", healthCheck.statusCode(), is(200));
+        assertThat("Servicio no disponible", ServiceReadiness.getInstance().isReady(), is(true));
         log.info("✓ Servicio disponible");
     }
 
@@ -75,7 +93,10 @@ public class UsuariosSteps {
         ScenarioContext.setResponse(creationResponse);
 
         if (creationResponse.statusCode() == 201) {
-            existingUserId = creationResponse.jsonPath().getString("id");
+            existingUserId = ScenarioContext.getResponseView().firstString("usuario.id", "id");
+            // El email es fijo y lo comparten los escenarios que corren a la vez: si este lo
+            // eliminara al terminar, el POST duplicado de otro recibiría 201 en vez de 409
+            UserCleanup.getInstance().keepUntilSuiteEnd(existingUserId);
             log.info("✓ Usuario con email: {}", email);
         } else if (creationResponse.statusCode() == 409) {
             log.warn("Usuario con email {} ya existía (409)", email);
@@ -105,7 +126,8 @@ public class UsuariosSteps {
         ScenarioContext.setResponse(creationResponse);
 
         if (creationResponse.statusCode() == 201) {
-            existingUserId = creationResponse.jsonPath().getString("id");
+            existingUserId = ScenarioContext.getResponseView().firstString("usuario.id", "id");
+            UserCleanup.getInstance().keepUntilSuiteEnd(existingUserId);
             log.info("✓ Usuario (con email): {}", testUser.getEmail());
         } else {
             log.warn("No se pudo crear usuario para test de username duplicado");
@@ -151,28 +173,31 @@ public class UsuariosSteps {
 
     @Dado("que existen múltiples usuarios en el sistema")
     public void existenMultiplesUsuarios() {
-        for (int i = 0; i < 3; i++) {
-            UsersData.UserTestData user = UsersData.generateRandomUser();
-            Map<String, Object> data = UsersData.userToMap(user);
-            apiClient.postAuthenticated(config.getUsersEndpoint(), data, adminToken);
-        }
-        log.info("✓ Múltiples usuarios");
+        existenUsuariosCreados(3);
     }
 
-    @Dado("que existe un usuario en el sistema")
-    public void existeUnUsuario() {
-        testUser = UsersData.generateRandomUser();
-        userData = UsersData.userToMap(testUser);
+    @Dado("que existen {int} usuarios creados en el sistema")
+    public void existenUsuariosCreados(int cantidad) {
+        UserSeeder.SeedReport report = UserSeeder.getInstance().seed(cantidad, false);
+        assertThat("Usuarios sembrados. Fallos: " + report.getFailures(), report.getCreated(), hasSize(cantidad));
+        List<String> ids = new ArrayList<>(cantidad);
+        report.getCreated().forEach(user -> ids.add(user.getId()));
+        ScenarioContext.store(SEEDED_USER_IDS, ids);
+        log.info("✓ {} usuarios creados", cantidad);
+    }
 
-        Response creationResponse = apiClient.postAuthenticated(
-                config.getUsersEndpoint(), userData, adminToken);
-        ScenarioContext.setResponse(creationResponse);
+    @Dado("que existen {int} usuarios con perfil en el sistema")
+    public void existenUsuariosConPerfil(int cantidad) {
+        UserSeeder.SeedReport report = UserSeeder.getInstance().seed(cantidad, true);
+        assertThat("Usuarios sembrados. Fallos: " + report.getFailures(), report.getCreated(), hasSize(cantidad));
+        log.info("✓ {} usuarios con perfil creados", cantidad);
+    }
 
-        // FIX: La respuesta de creación es anidada
-        createdUserId = creationResponse.jsonPath().getString("usuario.id");
-        if(createdUserId == null) {
-            createdUserId = creationResponse.jsonPath().getString("id");
-        }
+    @Dado("que existe un usuario en el sistema")
+    public void existeUnUsuario() {
+        leasedUser = UserPool.getInstance().lease();
+        testUser = leasedUser.getData();
+        createdUserId = leasedUser.getId();
 
         assertThat("Usuario creado", createdUserId, notNullValue());
         log.info("✓ Usuario ID: {}", createdUserId);
@@ -199,18 +224,11 @@ public class UsuariosSteps {
 
     @Dado("que existen dos usuarios en el sistema")
     public void existenDosUsuarios() {
-        testUser = UsersData.generateRandomUser();
-        userData = UsersData.userToMap(testUser);
-        Response firstCreationResponse = apiClient.postAuthenticated(
-                config.getUsersEndpoint(), userData, adminToken);
-        // FIX: La respuesta de creación es anidada
-        createdUserId = firstCreationResponse.jsonPath().getString("usuario.id");
+        leasedUser = UserPool.getInstance().lease();
+        testUser = leasedUser.getData();
+        createdUserId = leasedUser.getId();
 
-        secondUser = UsersData.generateRandomUser();
-        Map<String, Object> secondData = UsersData.userToMap(secondUser);
-        Response secondCreationResponse = apiClient.postAuthenticated(
-                config.getUsersEndpoint(), secondData, adminToken);
-        ScenarioContext.setResponse(secondCreationResponse);
+        secondUser = UserPool.getInstance().lease().getData();
 
         log.info("✓ Dos usuarios");
     }
@@ -231,19 +249,14 @@ public class UsuariosSteps {
 
     @Dado("que tengo un token de usuario sin permisos de administrador")
     public void tokenSinPermisosAdmin() {
+        // El usuario del pool no tiene rol de administrador y su token ya está en caché
+        this.userToken = UserPool.getInstance().lease().getToken();
+        assertThat("Token sin permisos", userToken, notNullValue());
+
+        // Datos del usuario que se intentará crear sin permisos
         testUser = UsersData.generateRandomUser();
         userData = UsersData.userToMap(testUser);
-
-        Response creationResponse = apiClient.postAuthenticated(
-                config.getUsersEndpoint(), userData, adminToken);
-        ScenarioContext.setResponse(creationResponse);
-
-        if (creationResponse.statusCode() == 201) {
-            // El usuario se crea en Keycloak con el email como username
-            this.userToken = tokenClient.getToken(
-                    testUser.getEmail(), testUser.getPassword());
-            log.info("✓ Token sin permisos");
-        }
+        log.info("✓ Token sin permisos");
     }
 
     @Cuando("envío una solicitud para crear el usuario")
@@ -273,6 +286,16 @@ public class UsuariosSteps {
         log.info("✓ Paginación: page={}, size={}", page, size);
     }
 
+    @Cuando("recorro todas las páginas de usuarios con tamaño {int} y {int} solicitudes en paralelo")
+    public void recorrerPaginasEnParalelo(int size, int paralelas) {
+        PaginationCrawler.CrawlReport report = new PaginationCrawler(adminToken, size, paralelas)
+                .crawlUntilStable(config.getCrawlerAttempts());
+        ScenarioContext.store(CRAWL_REPORT, report);
+        log.info("✓ Recorridas {} páginas en {} ms: {} usuarios ({} distintos), totalElements={}{}",
+                report.getPages(), report.getDurationMs(), report.getItemsSeen(), report.getDistinct(),
+                report.getTotalElementsAtEnd(), report.isStable() ? "" : " (con escrituras concurrentes)");
+    }
+
     @Cuando("envío una solicitud para obtener ese usuario por ID")
     public void obtenerUsuarioPorId() {
         String endpoint = config.getUsersEndpoint() + "/" + createdUserId;
@@ -294,6 +317,7 @@ public class UsuariosSteps {
         String endpoint = config.getUsersEndpoint() + "/" + createdUserId;
         Response apiResponse = apiClient.putAuthenticated(endpoint, userData, adminToken);
         ScenarioContext.setResponse(apiResponse);
+        markLeasedUserDirty();
         log.info("✓ Actualizar");
     }
 
@@ -310,6 +334,7 @@ public class UsuariosSteps {
         String endpoint = config.getUsersEndpoint() + "/" + createdUserId;
         Response apiResponse = apiClient.putAuthenticated(endpoint, updateData, adminToken);
         ScenarioContext.setResponse(apiResponse);
+        markLeasedUserDirty();
         log.info("✓ Email duplicado");
     }
 
@@ -318,9 +343,19 @@ public class UsuariosSteps {
         String endpoint = config.getUsersEndpoint() + "/" + createdUserId;
         Response apiResponse = apiClient.deleteAuthenticated(endpoint, adminToken);
         ScenarioContext.setResponse(apiResponse);
+        markLeasedUserDirty();
         log.info("✓ Eliminar");
     }
 
+    /**
+     * El escenario modificó (o eliminó) el usuario prestado: el pool lo reemplaza.
+     */
+    private void markLeasedUserDirty() {
+        if (leasedUser != null) {
+            UserPool.getInstance().markDirty(leasedUser);
+        }
+    }
+
     @Cuando("envío una solicitud para buscar usuarios por nombre {string}")
     public void buscarUsuariosPorNombre(String nombre) {
         String endpoint = String.format("%s/search?name=%s",
@@ -332,44 +367,32 @@ public class UsuariosSteps {
 
     @Entonces("el usuario debe ser creado exitosamente")
     public void usuarioCreadoExitosamente() {
-        Response responseFromContext = ScenarioContext.getResponse();
         // FIX: La respuesta de creación es anidada
-        createdUserId = responseFromContext.jsonPath().getString("usuario.id");
-        if(createdUserId == null) {
-            createdUserId = responseFromContext.jsonPath().getString("id");
-        }
+        createdUserId = ScenarioContext.getResponseView().firstString("usuario.id", "id");
         assertThat("ID existe", createdUserId, notNullValue());
         log.info("✓ Creado ID: {}", createdUserId);
     }
 
     @Entonces("la respuesta debe cumplir con el esquema de usuario")
     public void respuestaCumpleEsquemaUsuario() {
-        Response responseFromContext = ScenarioContext.getResponse();
+        ResponseView body = ScenarioContext.getResponseView();
 
         // FIX: La respuesta de 'Crear' es anidada[cite: 526],
         // pero la de 'Get' es plana[cite: 651].
-        if (responseFromContext.jsonPath().get("usuario") != null) {
+        if (body.has("usuario")) {
             // Estructura anidada (POST /api/usuarios)
-            assertThat("Tiene ID (anidado)", responseFromContext.jsonPath().get("usuario.id"), notNullValue());
-            assertThat("Tiene nombre (anidado)", responseFromContext.jsonPath().get("usuario.nombre"), notNullValue());
-            assertThat("Tiene email (anidado)", responseFromContext.jsonPath().get("usuario.email"), notNullValue());
+            assertThat("Esquema de usuario (anidado)", schemas.validate(Schema.USER, body.get("usuario")), empty());
         } else {
             // Estructura plana (GET /api/usuarios/{id})
-            assertThat("Tiene ID (plano)", responseFromContext.jsonPath().get("id"), notNullValue());
-            assertThat("Tiene nombre (plano)", responseFromContext.jsonPath().get("nombre"), notNullValue());
-            assertThat("Tiene email (plano)", responseFromContext.jsonPath().get("email"), notNullValue());
+            assertThat("Esquema de usuario (plano)", schemas.validate(Schema.USER, body.root()), empty());
         }
         log.info("✓ Esquema válido");
     }
 
     @Entonces("debe contener el ID del usuario creado")
     public void contieneIdUsuarioCreado() {
-        Response responseFromContext = ScenarioContext.getResponse();
         // FIX: La respuesta de creación es anidada
-        String id = responseFromContext.jsonPath().getString("usuario.id");
-        if(id == null) {
-            id = responseFromContext.jsonPath().getString("id");
-        }
+        String id = ScenarioContext.getResponseView().firstString("usuario.id", "id");
         assertThat("ID existe", id, notNullValue());
         assertThat("ID no vacío", id, not(emptyString()));
         log.info("✓ ID: {}", id);
@@ -377,16 +400,18 @@ public class UsuariosSteps {
 
     @Entonces("debo recibir un mensaje indicando que el email ya existe")
     public void mensajeEmailExiste() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("message");
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Esquema de error", schemas.validate(Schema.ERROR, body.root()), empty());
+        String message = body.getString("message");
         assertThat("Mensaje error", message, containsStringIgnoringCase("email"));
         log.info("✓ Mensaje email duplicado");
     }
 
     @Entonces("debo recibir un mensaje indicando que el username ya existe")
     public void mensajeUsernameExiste() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("message");
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Esquema de error", schemas.validate(Schema.ERROR, body.root()), empty());
+        String message = body.getString("message");
         // La API real valida email, no username
         assertThat("Mensaje error (email duplicado)", message, containsStringIgnoringCase("email"));
         log.info("✓ Mensaje: {}", message);
@@ -394,8 +419,9 @@ public class UsuariosSteps {
 
     @Entonces("debo recibir un mensaje indicando que el campo {string} es requerido")
     public void mensajeCampoRequerido(String campo) {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("message");
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Esquema de error", schemas.validate(Schema.ERROR, body.root()), empty());
+        String message = body.getString("message");
         assertThat("Mensaje campo requerido", message, notNullValue());
 
         // El campo 'nombre' reemplaza a 'firstName' y 'lastName'
@@ -410,31 +436,48 @@ public class UsuariosSteps {
 
     @Entonces("debo recibir una lista de usuarios")
     public void recibirListaUsuarios() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        List<?> content = responseFromContext.jsonPath().getList("content");
+        List<JsonElement> content = ScenarioContext.getResponseView().getList("content");
         assertThat("Lista no nula", content, notNullValue());
         log.info("✓ Lista de {} usuarios", content.size());
     }
 
     @Entonces("cada usuario debe cumplir con el esquema de usuario")
     public void cadaUsuarioCumpleEsquema() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        List<Map<String, Object>> content = responseFromContext.jsonPath().getList("content");
-        assertThat("Lista no vacía", content, not(empty()));
-        for (Map<String, Object> usuario : content) {
-            assertThat("Usuario tiene ID", usuario.get("id"), notNullValue());
-            assertThat("Usuario tiene nombre", usuario.get("nombre"), notNullValue());
-            assertThat("Usuario tiene email", usuario.get("email"), notNullValue());
-        }
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Lista no vacía", body.size("content"), greaterThan(0));
+        // El schema de la página valida cada elemento de 'content' con el schema de usuario
+        assertThat("Esquema de página de usuarios", schemas.validate(Schema.PAGE, body.root()), empty());
         log.info("✓ Todos cumplen esquema");
     }
 
+    @Entonces("todos los usuarios de todas las páginas deben cumplir con el esquema de usuario")
+    public void todosLosUsuariosCumplenEsquema() {
+        // Se recorren todas las páginas, un usuario a la vez y con memoria constante
+        UserPageIterator usuarios = new UserPageIterator(adminToken);
+        List<String> invalidos = new ArrayList<>();
+        long cantidadInvalidos = 0;
+        while (usuarios.hasNext()) {
+            JsonObject usuario = usuarios.next();
+            List<String> errors = schemas.validate(Schema.USER, usuario);
+            if (!errors.isEmpty()) {
+                cantidadInvalidos++;
+                if (invalidos.size() < 5) {
+                    invalidos.add(ResponseView.at(usuario, "id") + " " + errors);
+                }
+            }
+        }
+        assertThat("Usuarios recorridos", usuarios.getItemsRead(), greaterThan(0L));
+        assertThat(cantidadInvalidos + " usuarios no cumplen el esquema (primeros)", invalidos, empty());
+        log.info("✓ Todos cumplen esquema: {} usuarios en {} páginas (totalElements={})",
+                usuarios.getItemsRead(), usuarios.getPagesRead(), usuarios.getReportedTotalElements());
+    }
+
     @Entonces("debo recibir los datos del usuario")
     public void recibirDatosUsuario() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        assertThat("Tiene ID", responseFromContext.jsonPath().get("id"), notNullValue());
-        assertThat("Tiene nombre", responseFromContext.jsonPath().get("nombre"), notNullValue());
-        assertThat("Tiene email", responseFromContext.jsonPath().get("email"), notNullValue());
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Tiene ID", body.get("id"), notNullValue());
+        assertThat("Tiene nombre", body.get("nombre"), notNullValue());
+        assertThat("Tiene email", body.get("email"), notNullValue());
         log.info("✓ Datos usuario");
     }
 
@@ -448,8 +491,7 @@ public class UsuariosSteps {
 
     @Entonces("el usuario debe ser actualizado con los nuevos datos")
     public void usuarioActualizado() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        assertThat("Usuario actualizado", responseFromContext.jsonPath().get("id"), notNullValue());
+        assertThat("Usuario actualizado", ScenarioContext.getResponseView().get("id"), notNullValue());
         log.info("✓ Usuario actualizado");
     }
 
@@ -470,16 +512,16 @@ public class UsuariosSteps {
 
     @Entonces("debo recibir un mensaje indicando que el email ya está en uso")
     public void mensajeEmailEnUso() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        String message = responseFromContext.jsonPath().getString("message");
+        ResponseView body = ScenarioContext.getResponseView();
+        assertThat("Esquema de error", schemas.validate(Schema.ERROR, body.root()), empty());
+        String message = body.getString("message");
         assertThat("Mensaje email en uso", message, containsStringIgnoringCase("email"));
         log.info("✓ Email en uso");
     }
 
     @Entonces("debo recibir usuarios que coincidan con el nombre")
     public void usuariosCoincidanNombre() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        List<?> usuarios = responseFromContext.jsonPath().getList("$");
+        List<JsonElement> usuarios = ScenarioContext.getResponseView().getList("$");
         assertThat("Hay resultados", usuarios, not(empty()));
         log.info("✓ {} usuarios encontrados", usuarios.size());
     }
@@ -498,19 +540,54 @@ public class UsuariosSteps {
 
     @Entonces("debo recibir máximo {int} usuarios")
     public void debo_recibir_máximo_usuarios(int cantidad) {
-        Response responseFromContext = ScenarioContext.getResponse();
-        List<?> content = responseFromContext.jsonPath().getList("content");
+        List<JsonElement> content = ScenarioContext.getResponseView().getList("content");
         assertThat("Lista no nula", content, notNullValue());
         assertThat("Cantidad máxima de usuarios", content.size(), lessThanOrEqualTo(cantidad));
         log.info("✓ Recibidos {} usuarios (máximo {})", content.size(), cantidad);
     }
 
+    @Entonces("ningún usuario debe aparecer en más de una página")
+    public void ningunUsuarioRepetido() {
+        PaginationCrawler.CrawlReport report = stableCrawlReport();
+        assertThat(report.getDuplicates() + " IDs repetidos entre páginas (primeros)", report.getDuplicateSamples(), empty());
+        log.info("✓ Sin usuarios repetidos entre páginas");
+    }
+
+    @Entonces("todos los usuarios creados deben aparecer en alguna página")
+    public void usuariosCreadosEnAlgunaPagina() {
+        PaginationCrawler.CrawlReport report = stableCrawlReport();
+        List<String> seeded = ScenarioContext.get(SEEDED_USER_IDS);
+        assertThat("Usuarios creados en el escenario", seeded, notNullValue());
+        assertThat("Usuarios creados que no aparecen en ninguna página", report.missing(seeded), empty());
+        log.info("✓ Los {} usuarios creados aparecen en el recorrido", seeded.size());
+    }
+
+    @Entonces("el total de usuarios recorridos debe coincidir con totalElements")
+    public void totalRecorridoCoincide() {
+        PaginationCrawler.CrawlReport report = stableCrawlReport();
+        assertThat("Usuarios distintos vistos vs totalElements",
+                (long) report.getDistinct(), is(report.getTotalElementsAtEnd()));
+        log.info("✓ {} usuarios recorridos = totalElements", report.getDistinct());
+    }
+
+    /**
+     * Las anomalías solo se verifican en un recorrido sin escrituras concurrentes: con
+     * escrituras, la paginación por offset repite o salta usuarios por diseño.
+     */
+    private PaginationCrawler.CrawlReport stableCrawlReport() {
+        PaginationCrawler.CrawlReport report = ScenarioContext.get(CRAWL_REPORT);
+        assertThat("Recorrido de páginas", report, notNullValue());
+        assertThat("Recorrido sin escrituras concurrentes en " + config.getCrawlerAttempts() + " intentos (totalElements "
+                        + report.getMinTotalElements() + ".." + report.getMaxTotalElements() + ")",
+                report.isStable(), is(true));
+        return report;
+    }
+
     @Entonces("la respuesta debe contener información de paginación")
     public void la_respuesta_debe_contener_información_de_paginación() {
-        Response responseFromContext = ScenarioContext.getResponse();
-        assertThat("Contiene 'pageable'", responseFromContext.jsonPath().get("pageable"), notNullValue());
-        assertThat("Contiene 'totalPages'", responseFromContext.jsonPath().get("totalPages"), notNullValue());
-        assertThat("Contiene 'totalElements'", responseFromContext.jsonPath().get("totalElements"), notNullValue());
+        ResponseView body = ScenarioContext.getResponseView();
+        // pageable, totalPages y totalElements son obligatorios en el schema de página
+        assertThat("Esquema de página de usuarios", schemas.validate(Schema.PAGE, body.root()), empty());
         log.info("✓ Paginación OK");
     }
 
@@ -0,0 +1,163 @@
+package co.edu.uniquindio.tests.stub;
+
+import com.google.gson.Gson;
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Intercambios grabados, agrupados por ámbito (el escenario que los hizo, o la corrida para
+ * los de hilos sin escenario: calentamiento, pool de usuarios, limpieza) y por solicitud
+ * normalizada. En disco es un JSON por línea comprimido con gzip.
+ */
+class Cassette {
+
+    static final String SUITE_SCOPE = "(corrida)";
+
+    // Intercambios por solicitud que se guardan del ámbito de la corrida (se repiten en ciclo)
+    private static final int MAX_SUITE_ENTRIES_PER_KEY = 20;
+    private static final Gson GSON = new Gson();
+
+    private final Map<String, Map<String, List<Entry>>> byScope = new ConcurrentHashMap<>();
+    private final Map<String, List<Entry>> byKey = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> fallbackCursors = new ConcurrentHashMap<>();
+
+    /**
+     * Guarda los intercambios de una ejecución del escenario; si el escenario ya estaba
+     * grabado (modo carga o escenarios repetidos) se conserva la primera ejecución.
+     */
+    synchronized boolean addScenario(String scope, List<Entry> entries) {
+        Map<String, List<Entry>> grouped = new LinkedHashMap<>();
+        entries.forEach(entry -> grouped.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry));
+        if (byScope.putIfAbsent(scope, grouped) != null) {
+            return false;
+        }
+        entries.forEach(this::index);
+        return true;
+    }
+
+    /**
+     * Agrega un intercambio que terminó después del escenario ya guardado con addScenario.
+     */
+    synchronized void addToScenario(String scope, Entry entry) {
+        Map<String, List<Entry>> grouped = byScope.get(scope);
+        if (grouped != null) {
+            grouped.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry);
+            index(entry);
+        }
+    }
+
+    synchronized void addSuite(Entry entry) {
+        List<Entry> list = byScope.computeIfAbsent(SUITE_SCOPE, scope -> new ConcurrentHashMap<>())
+                .computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+        if (list.size() < MAX_SUITE_ENTRIES_PER_KEY) {
+            list.add(entry);
+            index(entry);
+        }
+    }
+
+    private void index(Entry entry) {
+        byKey.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry);
+    }
+
+    /**
+     * Intercambios grabados por el ámbito para la solicitud, en orden; null si no hay.
+     */
+    List<Entry> entries(String scope, String key) {
+        Map<String, List<Entry>> scoped = byScope.get(scope);
+        return scoped == null ? null : scoped.get(key);
+    }
+
+    /**
+     * Para solicitudes fuera de lo grabado por su escenario: primero los intercambios de la
+     * corrida y después los de cualquier escenario, repetidos en ciclo. null si la solicitud
+     * nunca se grabó.
+     */
+    Entry fallback(String key) {
+        List<Entry> candidates = entries(SUITE_SCOPE, key);
+        if (candidates == null || candidates.isEmpty()) {
+            candidates = byKey.get(key);
+        }
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        int cursor = fallbackCursors.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        return candidates.get(Math.floorMod(cursor, candidates.size()));
+    }
+
+    int size() {
+        return byKey.values().stream().mapToInt(List::size).sum();
+    }
+
+    int scenarios() {
+        return byScope.containsKey(SUITE_SCOPE) ? byScope.size() - 1 : byScope.size();
+    }
+
+    void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Map<String, List<Entry>>> scope : byScope.entrySet()) {
+                for (List<Entry> entries : scope.getValue().values()) {
+                    for (Entry entry : entries) {
+                        writer.write(GSON.toJson(entry));
+                        writer.newLine();
+                    }
+                }
+            }
+        }
+    }
+
+    static Cassette load(Path file) throws IOException {
+        Cassette cassette = new Cassette();
+        Map<String, List<Entry>> scenarios = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry = GSON.fromJson(line, Entry.class);
+                if (SUITE_SCOPE.equals(entry.getScope())) {
+                    cassette.addSuite(entry);
+                } else {
+                    scenarios.computeIfAbsent(entry.getScope(), scope -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        scenarios.forEach(cassette::addScenario);
+        return cassette;
+    }
+
+    /**
+     * Un intercambio grabado. El body guarda los valores dinámicos como plantillas
+     * (ver {@link CassetteTemplate}); jwt es el payload, también en plantilla, del access
+     * token de la respuesta, que en el replay se vuelve a firmar.
+     */
+    @Value
+    static class Entry {
+        String scope;
+        String key;
+        int status;
+        String contentType;
+        String body;
+        String jwt;
+        long durationMs;
+    }
+}
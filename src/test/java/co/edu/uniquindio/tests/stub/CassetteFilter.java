@@ -0,0 +1,402 @@
+package co.edu.uniquindio.tests.stub;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.support.LatencyRecorder;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grabación y replay del tráfico HTTP de la suite (cassette.mode=record|replay).
+ * <p>
+ * En modo record cada intercambio con la API y con Keycloak se guarda, en plantilla (ver
+ * {@link CassetteTemplate}), bajo el escenario que lo hizo; al terminar la corrida el cassette
+ * se escribe en cassette.dir. En modo replay ninguna solicitud sale a la red: cada una se
+ * responde con el siguiente intercambio grabado por su escenario para la misma solicitud
+ * normalizada (método, ruta con {id}, query y nombres de los campos del body), así que la
+ * suite corre sin la API ni Keycloak.
+ */
+@Slf4j
+public class CassetteFilter implements Filter {
+
+    private static volatile CassetteFilter instance;
+
+    private static final Gson GSON = new Gson();
+    private static final String DEFAULT_CONTENT_TYPE = "application/json";
+
+    private enum Mode { OFF, RECORD, REPLAY }
+
+    private final Mode mode;
+    private final Path file;
+    private final boolean replayLatency;
+    private final ThreadLocal<ScenarioState> scenario = new ThreadLocal<>();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder missing = new LongAdder();
+
+    private volatile Cassette cassette;
+    private volatile CassetteTemplate template;
+
+    private CassetteFilter() {
+        TestConfig config = TestConfig.getInstance();
+        this.mode = parseMode(config.getCassetteMode());
+        this.file = Path.of(config.getCassetteDir(), config.getCassetteName() + ".jsonl.gz");
+        this.replayLatency = config.isCassetteReplayLatency();
+        if (mode == Mode.RECORD) {
+            this.cassette = new Cassette();
+        }
+        if (mode != Mode.OFF) {
+            log.info("Cassette en modo {}: {}", mode.name().toLowerCase(Locale.ROOT), file.toAbsolutePath());
+        }
+    }
+
+    public static CassetteFilter getInstance() {
+        if (instance == null) {
+            synchronized (CassetteFilter.class) {
+                if (instance == null) {
+                    instance = new CassetteFilter();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static Mode parseMode(String value) {
+        switch (value) {
+            case "off":
+            case "":
+                return Mode.OFF;
+            case "record":
+                return Mode.RECORD;
+            case "replay":
+                return Mode.REPLAY;
+            default:
+                throw new RuntimeException("cassette.mode inválido: '" + value + "' (off, record o replay)");
+        }
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * Asocia las solicitudes del hilo actual al escenario; scope identifica al escenario
+     * igual en todas las corridas (archivo del feature y línea).
+     */
+    public void beginScenario(String scope) {
+        if (mode != Mode.OFF) {
+            scenario.set(new ScenarioState(scope));
+        }
+    }
+
+    public void endScenario() {
+        ScenarioState state = scenario.get();
+        scenario.remove();
+        if (state != null && mode == Mode.RECORD) {
+            synchronized (state) {
+                state.ended = true;
+                state.stored = cassette.addScenario(state.scope, state.entries);
+            }
+        }
+    }
+
+    /**
+     * Escenario del hilo actual, para que los hilos auxiliares (siembra, recorridos paginados,
+     * limpieza) graben y reproduzcan sus solicitudes bajo el escenario que las pidió y no
+     * bajo el ámbito de la suite. Null fuera de un escenario o con el cassette apagado.
+     */
+    public ScenarioState currentScenario() {
+        return scenario.get();
+    }
+
+    public void attach(ScenarioState state) {
+        if (state != null) {
+            scenario.set(state);
+        }
+    }
+
+    public void detach() {
+        scenario.remove();
+    }
+
+    /**
+     * Al terminar la corrida: en modo record escribe el cassette; en modo replay informa
+     * cuántas solicitudes no tenían grabación.
+     */
+    public void save() {
+        if (mode == Mode.RECORD) {
+            try {
+                cassette.save(file);
+                log.info("Cassette grabado: {} intercambios, {} escenarios en {}",
+                        cassette.size(), cassette.scenarios(), file.toAbsolutePath());
+            } catch (IOException e) {
+                log.error("No se pudo escribir el cassette {}: {}", file.toAbsolutePath(), e.getMessage());
+            }
+        } else if (mode == Mode.REPLAY) {
+            log.info("Cassette reproducido: {} respuestas servidas, {} solicitudes sin grabación",
+                    replayed.sum(), missing.sum());
+        }
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (mode == Mode.OFF) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        String key = requestKey(requestSpec);
+        CassetteTemplate.Request request = describe(requestSpec);
+        return mode == Mode.RECORD
+                ? record(key, request, requestSpec, responseSpec, ctx)
+                : replay(key, request);
+    }
+
+    private Response record(String key, CassetteTemplate.Request request,
+                            FilterableRequestSpecification requestSpec,
+                            FilterableResponseSpecification responseSpec,
+                            FilterContext ctx) {
+        long start = System.nanoTime();
+        Response response = ctx.next(requestSpec, responseSpec);
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+
+        String contentType = response.getContentType();
+        ScenarioState state = scenario.get();
+        CassetteTemplate.Recorded body;
+        if (state == null) {
+            body = CassetteTemplate.record(request, response.asString());
+        } else {
+            synchronized (state.uuids) {
+                body = CassetteTemplate.record(request, response.asString(), state.uuids);
+            }
+        }
+        Cassette.Entry entry = new Cassette.Entry(
+                state != null ? state.scope : Cassette.SUITE_SCOPE, key, response.getStatusCode(),
+                contentType == null || contentType.isEmpty() ? null : contentType,
+                body.getBody(), body.getJwt(), durationMs);
+        if (state == null) {
+            cassette.addSuite(entry);
+            return response;
+        }
+        synchronized (state) {
+            if (!state.ended) {
+                state.entries.add(entry);
+            } else if (state.stored) {
+                // Terminó después del escenario (p. ej. la limpieza asíncrona de sus usuarios)
+                cassette.addToScenario(state.scope, entry);
+            }
+        }
+        return response;
+    }
+
+    private Response replay(String key, CassetteTemplate.Request request) {
+        Cassette loaded = loadedCassette();
+        Cassette.Entry entry = null;
+        ScenarioState state = scenario.get();
+        if (state != null) {
+            List<Cassette.Entry> entries = loaded.entries(state.scope, key);
+            if (entries != null && !entries.isEmpty()) {
+                int index = state.cursors.merge(key, 1, Integer::sum) - 1;
+                // Si el escenario repite la solicitud más veces que al grabar, se repite la última
+                entry = entries.get(Math.min(index, entries.size() - 1));
+            }
+        }
+        if (entry == null) {
+            entry = loaded.fallback(key);
+        }
+        if (entry == null) {
+            missing.increment();
+            log.warn("Solicitud sin grabación en el cassette: {}", key);
+            return build(502, DEFAULT_CONTENT_TYPE,
+                    "{\"message\":\"Solicitud sin grabación en el cassette: " + key.replace("\"", "'") + "\"}");
+        }
+        if (replayLatency && entry.getDurationMs() > 0) {
+            try {
+                Thread.sleep(entry.getDurationMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        replayed.increment();
+        String body;
+        if (state == null) {
+            body = template.render(entry, request);
+        } else {
+            synchronized (state.uuids) {
+                body = template.render(entry, request, state.uuids);
+            }
+        }
+        return build(entry.getStatus(), entry.getContentType(), body);
+    }
+
+    private static Response build(int status, String contentType, String body) {
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(status)
+                .setStatusLine("HTTP/1.1 " + status)
+                .setBody(body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8));
+        if (contentType != null) {
+            builder.setContentType(contentType).setHeader("Content-Type", contentType);
+        }
+        return builder.build();
+    }
+
+    private Cassette loadedCassette() {
+        if (cassette == null) {
+            synchronized (this) {
+                if (cassette == null) {
+                    if (!Files.exists(file)) {
+                        throw new RuntimeException("No existe el cassette " + file.toAbsolutePath()
+                                + ": grábelo antes con cassette.mode=record");
+                    }
+                    try {
+                        Cassette loaded = Cassette.load(file);
+                        TestConfig config = TestConfig.getInstance();
+                        template = new CassetteTemplate(new StubTokenIssuer(
+                                config.getKeycloakUrl() + "/realms/" + config.getKeycloakRealm(),
+                                config.getStubTokenTtlSeconds()));
+                        log.info("Cassette cargado: {} intercambios, {} escenarios", loaded.size(), loaded.scenarios());
+                        cassette = loaded;
+                    } catch (IOException e) {
+                        throw new RuntimeException("No se pudo leer el cassette " + file.toAbsolutePath(), e);
+                    }
+                }
+            }
+        }
+        return cassette;
+    }
+
+    // ---------------- Solicitud normalizada ----------------
+
+    /**
+     * Método y ruta como en las métricas ({@link LatencyRecorder#endpointKey}), la query
+     * ordenada (IDs como {id}) y la forma del body: nombres de los campos, y el grant_type
+     * en las solicitudes de token.
+     */
+    private static String requestKey(FilterableRequestSpecification requestSpec) {
+        StringBuilder key = new StringBuilder(LatencyRecorder.endpointKey(requestSpec.getMethod(), requestSpec.getURI()));
+        String query = rawQuery(requestSpec.getURI());
+        if (query != null && !query.isEmpty()) {
+            TreeSet<String> params = new TreeSet<>();
+            for (String param : query.split("&")) {
+                int separator = param.indexOf('=');
+                String value = separator < 0 ? "" : param.substring(separator + 1);
+                params.add(separator < 0 ? param
+                        : param.substring(0, separator) + "=" + (CassetteTemplate.isUuid(value) ? "{id}" : value));
+            }
+            key.append('?').append(String.join("&", params));
+        }
+
+        Map<String, String> form = requestSpec.getFormParams();
+        if (form != null && !form.isEmpty()) {
+            key.append(" grant_type=").append(form.getOrDefault("grant_type", ""))
+                    .append(new TreeSet<>(form.keySet()));
+        } else {
+            JsonElement json = CassetteTemplate.parseOrNull(bodyText(requestSpec.getBody()));
+            if (json != null && json.isJsonObject()) {
+                key.append(' ').append(new TreeSet<>(json.getAsJsonObject().keySet()));
+            }
+        }
+        return key.toString();
+    }
+
+    private static CassetteTemplate.Request describe(FilterableRequestSpecification requestSpec) {
+        String path = rawPath(requestSpec.getURI());
+        String pathId = null;
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty() && CassetteTemplate.isIdSegment(segment)) {
+                pathId = segment;
+            }
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        JsonElement json = CassetteTemplate.parseOrNull(bodyText(requestSpec.getBody()));
+        if (json != null && json.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> field : json.getAsJsonObject().entrySet()) {
+                if (field.getValue().isJsonPrimitive()) {
+                    fields.put(field.getKey(), field.getValue().getAsString());
+                }
+            }
+        }
+        Map<String, String> form = requestSpec.getFormParams();
+        if (form != null) {
+            fields.putAll(form);
+        }
+
+        String tokenSub = null;
+        String tokenUsername = null;
+        Header authorization = requestSpec.getHeaders().get("Authorization");
+        if (authorization != null && authorization.getValue().startsWith("Bearer ")) {
+            JsonObject claims = CassetteTemplate.decodePayload(authorization.getValue().substring(7));
+            if (claims != null) {
+                tokenSub = claims.has("sub") ? claims.get("sub").getAsString() : null;
+                tokenUsername = claims.has("preferred_username") ? claims.get("preferred_username").getAsString() : null;
+            }
+        }
+        return new CassetteTemplate.Request(path, pathId, fields, tokenSub, tokenUsername);
+    }
+
+    private static String bodyText(Object body) {
+        if (body == null) {
+            return null;
+        }
+        if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return body instanceof String text ? text : GSON.toJson(body);
+    }
+
+    private static String rawPath(String uri) {
+        try {
+            String path = URI.create(uri).getRawPath();
+            return path == null ? "" : path;
+        } catch (IllegalArgumentException e) {
+            int query = uri.indexOf('?');
+            return query >= 0 ? uri.substring(0, query) : uri;
+        }
+    }
+
+    private static String rawQuery(String uri) {
+        int query = uri.indexOf('?');
+        return query >= 0 ? uri.substring(query + 1) : null;
+    }
+
+    /**
+     * Estado de un escenario en curso: lo grabado y, en replay, cuántas veces se sirvió cada
+     * solicitud. Lo comparten el hilo del escenario y sus hilos auxiliares.
+     */
+    public static final class ScenarioState {
+        private final String scope;
+        private final List<Cassette.Entry> entries = new ArrayList<>();
+        private final Map<String, Integer> cursors = new ConcurrentHashMap<>();
+        // Numeración de los UUID del escenario (ver CassetteTemplate)
+        private final Map<String, String> uuids = new HashMap<>();
+        private boolean ended;
+        private boolean stored;
+
+        private ScenarioState(String scope) {
+            this.scope = scope;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package co.edu.uniquindio.tests.stub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Plantillas de los valores dinámicos de los cassettes.
+ * <p>
+ * Al grabar, cada string de la respuesta que coincide con un dato de la solicitud se guarda
+ * como referencia a ese dato: {{path.id}}, {{body.email}}, {{token.sub}}... Los UUID restantes
+ * (IDs nuevos) quedan como {{uuid:N}}, el refresh token como {{random}} y el access token se
+ * reemplaza por su payload en plantilla, con iat/exp relativos a {{now}}.
+ * <p>
+ * En el replay las referencias se resuelven con la solicitud actual, los UUID son nuevos y el access token se vuelve a firmar con la llave que publica el JWKS del replay.
+ * Para que el 'sub' del token de un usuario sea el ID que le asignó su respuesta de creación,
+ * se recuerda el ID de cada objeto con 'id' y 'email' que aparece en las respuestas servidas.
+ * <p>
+ * Los {{uuid:N}} se numeran por escenario: un mismo ID grabado es el mismo N en todas las
+ * respuestas del escenario y en el replay se resuelve al mismo UUID nuevo, así el ID que
+ * devolvió la creación de un usuario es el que aparece después en el listado.
+ */
+class CassetteTemplate {
+
+    private static final Pattern UUID_VALUE =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern ID_SEGMENT = Pattern.compile(UUID_VALUE.pattern() + "|\\d+");
+    // Nunca se copian a la plantilla (ni se usan como referencia)
+    private static final Set<String> SECRET_FIELDS =
+            Set.of("password", "client_secret", "refresh_token", "currentPassword", "newPassword");
+    private static final String JWKS = "\"{{jwks}}\"";
+    private static final int MAX_IDENTITIES = 100_000;
+
+    private final StubTokenIssuer tokens;
+    // email/username (minúsculas) → ID asignado en el replay
+    private final Map<String, String> userIds = new ConcurrentHashMap<>();
+    // refresh token servido → {sub, username} del token que lo acompañaba
+    private final Map<String, String[]> refreshOwners = new ConcurrentHashMap<>();
+
+    CassetteTemplate(StubTokenIssuer tokens) {
+        this.tokens = tokens;
+    }
+
+    // ---------------- Grabación ----------------
+
+    static Recorded record(Request request, String body) {
+        return record(request, body, new HashMap<>());
+    }
+
+    /**
+     * uuids: UUID grabado → N, compartido por las respuestas del escenario.
+     */
+    static Recorded record(Request request, String body, Map<String, String> uuids) {
+        JsonElement json = parseOrNull(body);
+        if (json == null) {
+            return new Recorded(body, null);
+        }
+        if (request.getPath().endsWith("/certs") && json.isJsonObject() && json.getAsJsonObject().has("keys")) {
+            return new Recorded(JWKS, null);
+        }
+        String[] jwt = new String[1];
+        return new Recorded(template(null, json, request, uuids, jwt).toString(), jwt[0]);
+    }
+
+    private static JsonElement template(String field, JsonElement value, Request request,
+                                        Map<String, String> uuids, String[] jwt) {
+        if (value.isJsonObject()) {
+            JsonObject out = new JsonObject();
+            value.getAsJsonObject().entrySet()
+                    .forEach(entry -> out.add(entry.getKey(), template(entry.getKey(), entry.getValue(), request, uuids, jwt)));
+            return out;
+        }
+        if (value.isJsonArray()) {
+            JsonArray out = new JsonArray();
+            value.getAsJsonArray().forEach(item -> out.add(template(null, item, request, uuids, jwt)));
+            return out;
+        }
+        if (!value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+            return value;
+        }
+        String text = value.getAsString();
+        if ("access_token".equals(field)) {
+            JsonObject payload = decodePayload(text);
+            if (payload != null) {
+                jwt[0] = templatePayload(payload, uuids).toString();
+                return new JsonPrimitive("{{jwt}}");
+            }
+        }
+        if ("refresh_token".equals(field) || "id_token".equals(field)) {
+            return new JsonPrimitive("{{random}}");
+        }
+        String placeholder = placeholderFor(text, request, uuids);
+        return placeholder != null ? new JsonPrimitive(placeholder) : value;
+    }
+
+    private static String placeholderFor(String text, Request request, Map<String, String> uuids) {
+        if (text.equals(request.getPathId())) {
+            return "{{path.id}}";
+        }
+        if (text.equals(request.getTokenSub())) {
+            return "{{token.sub}}";
+        }
+        if (text.equalsIgnoreCase(request.getTokenUsername())) {
+            return "{{token.username}}";
+        }
+        for (Map.Entry<String, String> field : request.getFields().entrySet()) {
+            if (!SECRET_FIELDS.contains(field.getKey()) && text.equals(field.getValue())) {
+                return "{{body." + field.getKey() + "}}";
+            }
+        }
+        if (UUID_VALUE.matcher(text).matches()) {
+            return "{{uuid:" + uuids.computeIfAbsent(text, uuid -> String.valueOf(uuids.size())) + "}}";
+        }
+        return null;
+    }
+
+    private static JsonObject templatePayload(JsonObject payload, Map<String, String> uuids) {
+        long issuedAt = payload.has("iat") ? payload.get("iat").getAsLong() : Instant.now().getEpochSecond();
+        JsonObject out = new JsonObject();
+        payload.entrySet().forEach(claim -> {
+            JsonElement value = claim.getValue();
+            switch (claim.getKey()) {
+                case "iat":
+                case "nbf":
+                case "auth_time":
+                    out.addProperty(claim.getKey(), "{{now}}");
+                    break;
+                case "exp":
+                    out.addProperty("exp", "{{now+" + (value.getAsLong() - issuedAt) + "}}");
+                    break;
+                case "sub":
+                    out.addProperty("sub", "{{user.id:" + value.getAsString() + "}}");
+                    break;
+                case "preferred_username":
+                case "email":
+                    out.addProperty(claim.getKey(), "{{user.name:" + value.getAsString() + "}}");
+                    break;
+                default:
+                    boolean uuid = value.isJsonPrimitive() && UUID_VALUE.matcher(value.getAsString()).matches();
+                    out.add(claim.getKey(), uuid
+                            ? new JsonPrimitive("{{uuid:" + uuids.computeIfAbsent(value.getAsString(),
+                                    key -> String.valueOf(uuids.size())) + "}}")
+                            : value.deepCopy());
+            }
+        });
+        return out;
+    }
+
+    // ---------------- Replay ----------------
+
+    String render(Cassette.Entry entry, Request request) {
+        return render(entry, request, new HashMap<>());
+    }
+
+    /**
+     * uuids: {{uuid:N}} → UUID del replay, compartido por las respuestas del escenario.
+     */
+    String render(Cassette.Entry entry, Request request, Map<String, String> uuids) {
+        String body = entry.getBody();
+        if (JWKS.equals(body)) {
+            return tokens.jwks().toString();
+        }
+        JsonElement json = parseOrNull(body);
+        if (json == null) {
+            return body;
+        }
+        JsonElement rendered = resolveAll(json, request, uuids);
+
+        if (entry.getJwt() != null && rendered.isJsonObject()) {
+            JsonObject payload = resolveAll(JsonParser.parseString(entry.getJwt()), request, uuids).getAsJsonObject();
+            JsonObject tokenResponse = rendered.getAsJsonObject();
+            tokenResponse.addProperty("access_token", tokens.sign(payload));
+            JsonElement refreshToken = tokenResponse.get("refresh_token");
+            if (refreshToken != null && refreshToken.isJsonPrimitive()) {
+                refreshOwners.put(refreshToken.getAsString(),
+                        new String[]{text(payload, "sub"), text(payload, "preferred_username")});
+            }
+        }
+        rememberUserIds(rendered);
+        return rendered.toString();
+    }
+
+    private JsonElement resolveAll(JsonElement value, Request request, Map<String, String> uuids) {
+        if (value.isJsonObject()) {
+            JsonObject out = new JsonObject();
+            value.getAsJsonObject().entrySet()
+                    .forEach(entry -> out.add(entry.getKey(), resolveAll(entry.getValue(), request, uuids)));
+            return out;
+        }
+        if (value.isJsonArray()) {
+            JsonArray out = new JsonArray();
+            value.getAsJsonArray().forEach(item -> out.add(resolveAll(item, request, uuids)));
+            return out;
+        }
+        if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            String text = value.getAsString();
+            if (text.startsWith("{{") && text.endsWith("}}")) {
+                return resolve(text.substring(2, text.length() - 2), request, uuids);
+            }
+        }
+        return value;
+    }
+
+    private JsonElement resolve(String expression, Request request, Map<String, String> uuids) {
+        long now = Instant.now().getEpochSecond();
+        if (expression.equals("now")) {
+            return new JsonPrimitive(now);
+        }
+        if (expression.startsWith("now+")) {
+            return new JsonPrimitive(now + Long.parseLong(expression.substring(4)));
+        }
+        if (expression.startsWith("uuid:")) {
+            return new JsonPrimitive(uuids.computeIfAbsent(expression, key -> UUID.randomUUID().toString()));
+        }
+        if (expression.startsWith("user.id:")) {
+            String id = userIdOf(request);
+            return new JsonPrimitive(id != null ? id : expression.substring("user.id:".length()));
+        }
+        if (expression.startsWith("user.name:")) {
+            String name = userNameOf(request);
+            return new JsonPrimitive(name != null ? name : expression.substring("user.name:".length()));
+        }
+        String value;
+        switch (expression) {
+            case "path.id":
+                value = request.getPathId();
+                break;
+            case "token.sub":
+                value = request.getTokenSub();
+                break;
+            case "token.username":
+                value = request.getTokenUsername();
+                break;
+            case "random":
+                value = UUID.randomUUID() + "." + UUID.randomUUID();
+                break;
+            default:
+                value = expression.startsWith("body.") ? request.getFields().get(expression.substring(5)) : "{{" + expression + "}}";
+        }
+        return value != null ? new JsonPrimitive(value) : JsonNull.INSTANCE;
+    }
+
+    private String userIdOf(Request request) {
+        String username = request.getFields().get("username");
+        if (username != null) {
+            return userIds.get(username.toLowerCase(Locale.ROOT));
+        }
+        String[] owner = refreshOwners.get(request.getFields().getOrDefault("refresh_token", ""));
+        return owner != null ? owner[0] : null;
+    }
+
+    private String userNameOf(Request request) {
+        String username = request.getFields().get("username");
+        if (username != null) {
+            return username.toLowerCase(Locale.ROOT);
+        }
+        String[] owner = refreshOwners.get(request.getFields().getOrDefault("refresh_token", ""));
+        return owner != null ? owner[1] : null;
+    }
+
+    private void rememberUserIds(JsonElement value) {
+        if (value.isJsonArray()) {
+            value.getAsJsonArray().forEach(this::rememberUserIds);
+            return;
+        }
+        if (!value.isJsonObject()) {
+            return;
+        }
+        JsonObject object = value.getAsJsonObject();
+        String id = text(object, "id");
+        String email = text(object, "email");
+        if (id != null && email != null) {
+            if (userIds.size() >= MAX_IDENTITIES) {
+                userIds.clear();
+            }
+            userIds.put(email.toLowerCase(Locale.ROOT), id);
+        }
+        object.entrySet().forEach(entry -> rememberUserIds(entry.getValue()));
+    }
+
+    // ---------------- Utilidades ----------------
+
+    static boolean isIdSegment(String segment) {
+        return ID_SEGMENT.matcher(segment).matches();
+    }
+
+    static boolean isUuid(String value) {
+        return UUID_VALUE.matcher(value).matches();
+    }
+
+    /**
+     * Claims de un JWT sin verificar la firma; null si el texto no es un JWT.
+     */
+    static JsonObject decodePayload(String token) {
+        if (token == null) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0) {
+            return null;
+        }
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot)),
+                    StandardCharsets.UTF_8);
+            JsonElement payload = JsonParser.parseString(json);
+            return payload.isJsonObject() ? payload.getAsJsonObject() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    static JsonElement parseOrNull(String body) {
+        if (body == null || body.isEmpty()) {
+            return null;
+        }
+        char first = body.trim().isEmpty() ? ' ' : body.trim().charAt(0);
+        if (first != '{' && first != '[') {
+            return null;
+        }
+        try {
+            return JsonParser.parseString(body);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String text(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    /**
+     * Lo que se usa de la solicitud para grabar y resolver plantillas.
+     */
+    @Value
+    static class Request {
+        String path;
+        String pathId;
+        // Campos de primer nivel del body JSON y parámetros de formulario
+        Map<String, String> fields;
+        String tokenSub;
+        String tokenUsername;
+    }
+
+    @Value
+    static class Recorded {
+        String body;
+        String jwt;
+    }
+}
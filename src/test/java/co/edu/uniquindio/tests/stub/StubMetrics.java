@@ -0,0 +1,95 @@
+package co.edu.uniquindio.tests.stub;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del stub en el formato de texto de Prometheus, con los mismos nombres que
+ * publica Micrometer en la API real: el histograma http_server_requests_seconds por
+ * método, ruta (plantilla), status y outcome, más algunos gauges de la JVM.
+ */
+class StubMetrics {
+
+    // Límites de los buckets en segundos (los de Micrometer para un SLO de 1 ms a 10 s)
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+
+    void record(String method, String uri, int status, long elapsedNanos) {
+        String labels = "exception=\"None\",method=\"" + method + "\",outcome=\"" + outcome(status)
+                + "\",status=\"" + status + "\",uri=\"" + uri + "\",";
+        series.computeIfAbsent(labels, key -> new Series()).record(elapsedNanos / 1e9);
+    }
+
+    String render() {
+        StringBuilder out = new StringBuilder(4096 + series.size() * 1024);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        out.append("# HELP jvm_memory_used_bytes The amount of used memory\n")
+                .append("# TYPE jvm_memory_used_bytes gauge\n")
+                .append("jvm_memory_used_bytes{area=\"heap\",id=\"stub\",} ").append((double) heap.getUsed()).append('\n')
+                .append("jvm_memory_used_bytes{area=\"nonheap\",id=\"stub\",} ").append((double) nonHeap.getUsed()).append('\n');
+        out.append("# HELP jvm_threads_live_threads The current number of live threads\n")
+                .append("# TYPE jvm_threads_live_threads gauge\n")
+                .append("jvm_threads_live_threads ").append((double) ManagementFactory.getThreadMXBean().getThreadCount()).append('\n');
+        out.append("# HELP process_uptime_seconds The uptime of the Java virtual machine\n")
+                .append("# TYPE process_uptime_seconds gauge\n")
+                .append("process_uptime_seconds ")
+                .append(ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0).append('\n');
+
+        out.append("# HELP http_server_requests_seconds\n")
+                .append("# TYPE http_server_requests_seconds histogram\n");
+        series.forEach((labels, s) -> {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += s.buckets[i].sum();
+                out.append("http_server_requests_seconds_bucket{").append(labels)
+                        .append("le=\"").append(BUCKETS[i]).append("\",} ").append((double) cumulative).append('\n');
+            }
+            long count = s.count.sum();
+            out.append("http_server_requests_seconds_bucket{").append(labels)
+                    .append("le=\"+Inf\",} ").append((double) count).append('\n');
+            out.append("http_server_requests_seconds_count{").append(labels).append("} ").append((double) count).append('\n');
+            out.append("http_server_requests_seconds_sum{").append(labels).append("} ").append(s.sum.sum()).append('\n');
+        });
+        return out.toString();
+    }
+
+    private static String outcome(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        return status >= 300 ? "REDIRECTION" : "SUCCESS";
+    }
+
+    private static final class Series {
+        // Conteo por bucket (no acumulado); el último es el de +Inf
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private Series() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(double seconds) {
+            int bucket = 0;
+            while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            sum.add(seconds);
+        }
+    }
+}
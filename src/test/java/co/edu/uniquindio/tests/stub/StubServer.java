@@ -0,0 +1,580 @@
+package co.edu.uniquindio.tests.stub;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in hermético de Keycloak y de la API (usuarios, perfiles, contraseñas y actuator)
+ * que corre dentro del mismo proceso de la suite.
+ * <p>
+ * Con stub.enabled=true, {@link TestConfig} apunta api.base.url y keycloak.url a
+ * http://localhost:stub.port y los hooks lo arrancan antes del primer escenario: la suite
+ * corre sin red (CI aislado) y el modo carga mide el costo del propio harness sin el ruido
+ * del entorno compartido.
+ * <p>
+ * Replica el contrato que usan los steps: tokens JWT RS256 verificables con el JWKS del
+ * realm, el rol 'admin' para crear y eliminar usuarios, las respuestas anidadas/planas de
+ * /api/usuarios, los mensajes de error y el histograma http_server_requests_seconds en
+ * /actuator/prometheus. El estado vive en memoria y se pierde al terminar la JVM.
+ * <p>
+ * stub.latency.ms y stub.latency.jitter.ms agregan latencia a cada solicitud de la API y
+ * de Keycloak; stub.error.rate responde 503 a esa fracción de las solicitudes a /api/*.
+ */
+@Slf4j
+public class StubServer {
+
+    private static volatile StubServer instance;
+
+    private static final Gson GSON = new Gson();
+    private static final String JSON = "application/json";
+    private static final String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String OIDC_PREFIX = "/protocol/openid-connect/";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 2000;
+    private static final int REFRESH_TTL_SECONDS = 1800;
+
+    private final TestConfig config;
+    private final StubStore store;
+    private final StubTokenIssuer tokens;
+    private final StubMetrics metrics;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private StubServer() {
+        this.config = TestConfig.getInstance();
+        this.store = new StubStore(config.getAdminUsername(), config.getAdminPassword());
+        this.tokens = new StubTokenIssuer(config.getKeycloakUrl() + "/realms/" + config.getKeycloakRealm(),
+                config.getStubTokenTtlSeconds());
+        this.metrics = new StubMetrics();
+    }
+
+    public static StubServer getInstance() {
+        if (instance == null) {
+            synchronized (StubServer.class) {
+                if (instance == null) {
+                    instance = new StubServer();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Arranca el stub si stub.enabled=true. Es idempotente: el runner de carga y los hooks
+     * pueden llamarlo en cada iteración.
+     */
+    public static void startIfEnabled() {
+        if (TestConfig.getInstance().isStubEnabled()) {
+            getInstance().start();
+        }
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+        // Sin esto el HttpServer del JDK espera ~40 ms (Nagle + ACK retardado) en cada respuesta
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", config.getStubPort()), 256);
+        } catch (IOException e) {
+            throw new RuntimeException("No se pudo arrancar el stub en el puerto " + config.getStubPort()
+                    + ": " + e.getMessage(), e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+
+        // El hilo despachador del HttpServer hereda el modo daemon del hilo que llama a start():
+        // se arranca desde un hilo daemon para que el stub no impida que la JVM termine
+        Thread starter = new Thread(server::start, "stub-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Arranque del stub interrumpido", e);
+        }
+        log.info("Stub hermético escuchando en http://localhost:{} (latencia {} ms ± {} ms, errores {}%)",
+                config.getStubPort(), config.getStubLatencyMs(), config.getStubLatencyJitterMs(),
+                config.getStubErrorRate() * 100);
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    // ---------------- Despacho ----------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Reply reply;
+        try {
+            injectLatency(path);
+            if (path.startsWith("/api/") && ThreadLocalRandom.current().nextDouble() < config.getStubErrorRate()) {
+                reply = message(503, "Error inyectado por el stub (stub.error.rate)");
+            } else {
+                reply = dispatch(method, path, exchange);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply = message(503, "Stub detenido");
+        } catch (RuntimeException e) {
+            log.warn("Error del stub en {} {}: {}", method, path, e.toString());
+            reply = message(500, "Error interno del stub: " + e.getMessage());
+        }
+
+        String uri = uriTemplate(path);
+        if (uri != null) {
+            metrics.record(method, uri, reply.status, System.nanoTime() - start);
+        }
+        send(exchange, reply);
+    }
+
+    private void injectLatency(String path) throws InterruptedException {
+        if (!path.startsWith("/api/") && !path.startsWith("/realms/")) {
+            return;
+        }
+        long delay = config.getStubLatencyMs();
+        if (config.getStubLatencyJitterMs() > 0) {
+            delay += ThreadLocalRandom.current().nextInt(config.getStubLatencyJitterMs() + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private Reply dispatch(String method, String path, HttpExchange exchange) throws IOException {
+        if (path.startsWith("/realms/")) {
+            int operation = path.indexOf(OIDC_PREFIX);
+            return operation < 0 ? message(404, "Ruta no encontrada: " + path)
+                    : keycloak(method, path.substring(operation + OIDC_PREFIX.length()), exchange);
+        }
+        switch (path) {
+            case "/actuator/health":
+                return json(200, object("status", "UP"));
+            case "/actuator/prometheus":
+                return new Reply(200, PROMETHEUS, metrics.render().getBytes(StandardCharsets.UTF_8));
+            default:
+                break;
+        }
+        if (!path.startsWith("/api/")) {
+            return message(404, "Ruta no encontrada: " + path);
+        }
+
+        StubTokenIssuer.TokenClaims caller = authenticate(exchange);
+        if (caller == null) {
+            return message(401, "No autenticado: token ausente, inválido o expirado");
+        }
+        if (path.equals("/api/perfiles")) {
+            return profiles(method, caller, exchange);
+        }
+        if (path.equals("/api/usuarios")) {
+            if ("GET".equals(method)) {
+                return listUsers(query(exchange));
+            }
+            return "POST".equals(method) ? createUser(caller, exchange) : methodNotAllowed(method, path);
+        }
+        if (path.equals("/api/usuarios/search") && "GET".equals(method)) {
+            return searchUsers(query(exchange));
+        }
+        if (path.equals("/api/usuarios/password") && "PUT".equals(method)) {
+            return changePassword(caller, exchange);
+        }
+        if (path.startsWith("/api/usuarios/") && path.indexOf('/', "/api/usuarios/".length()) < 0) {
+            return user(method, path.substring("/api/usuarios/".length()), caller, exchange);
+        }
+        return message(404, "Ruta no encontrada: " + path);
+    }
+
+    /**
+     * Plantilla de la ruta para las métricas (como la etiqueta 'uri' de Micrometer);
+     * null para las rutas de Keycloak, que en el sistema real no publica la API.
+     */
+    private static String uriTemplate(String path) {
+        switch (path) {
+            case "/api/usuarios":
+            case "/api/usuarios/search":
+            case "/api/usuarios/password":
+            case "/api/perfiles":
+            case "/actuator/health":
+            case "/actuator/prometheus":
+                return path;
+            default:
+                if (path.startsWith("/api/usuarios/")) {
+                    return "/api/usuarios/{id}";
+                }
+                return path.startsWith("/realms/") ? null : "UNKNOWN";
+        }
+    }
+
+    // ---------------- Keycloak ----------------
+
+    private Reply keycloak(String method, String operation, HttpExchange exchange) throws IOException {
+        switch (operation) {
+            case "token":
+                return "POST".equals(method) ? token(form(exchange)) : methodNotAllowed(method, operation);
+            case "certs":
+                return json(200, tokens.jwks());
+            case "userinfo":
+                return userInfo(exchange);
+            case "logout":
+                store.revokeRefreshToken(form(exchange).get("refresh_token"));
+                return new Reply(204, JSON, new byte[0]);
+            default:
+                return message(404, "Ruta no encontrada: " + operation);
+        }
+    }
+
+    private Reply token(Map<String, String> form) {
+        String clientId = form.getOrDefault("client_id", config.getKeycloakClientId());
+        StubStore.Account account;
+        switch (form.getOrDefault("grant_type", "")) {
+            case "password":
+                account = store.authenticate(form.get("username"), form.get("password"));
+                if (account == null) {
+                    return oauthError(401, "invalid_grant", "Invalid user credentials");
+                }
+                break;
+            case "refresh_token":
+                account = store.redeemRefreshToken(form.get("refresh_token"));
+                if (account == null) {
+                    return oauthError(400, "invalid_grant", "Invalid refresh token");
+                }
+                break;
+            default:
+                return oauthError(400, "unsupported_grant_type", "Unsupported grant_type");
+        }
+
+        JsonObject body = new JsonObject();
+        body.addProperty("access_token", tokens.issue(account, clientId));
+        body.addProperty("expires_in", tokens.getTtlSeconds());
+        body.addProperty("refresh_expires_in", REFRESH_TTL_SECONDS);
+        body.addProperty("refresh_token", store.newRefreshToken(account, REFRESH_TTL_SECONDS));
+        body.addProperty("token_type", "Bearer");
+        body.addProperty("not-before-policy", 0);
+        body.addProperty("session_state", UUID.randomUUID().toString());
+        body.addProperty("scope", "profile email");
+        return json(200, body);
+    }
+
+    private Reply userInfo(HttpExchange exchange) {
+        StubTokenIssuer.TokenClaims claims = authenticate(exchange);
+        if (claims == null) {
+            return oauthError(401, "invalid_token", "Token verification failed");
+        }
+        JsonObject body = new JsonObject();
+        body.addProperty("sub", claims.getSubject());
+        body.addProperty("preferred_username", claims.getUsername());
+        body.addProperty("email", claims.getUsername());
+        body.addProperty("email_verified", true);
+        return json(200, body);
+    }
+
+    private StubTokenIssuer.TokenClaims authenticate(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return tokens.verify(authorization.substring(7).trim());
+    }
+
+    // ---------------- Usuarios ----------------
+
+    private Reply createUser(StubTokenIssuer.TokenClaims caller, HttpExchange exchange) throws IOException {
+        if (!caller.hasRole(StubStore.ADMIN_ROLE)) {
+            return message(403, "Acceso denegado: se requiere el rol de administrador");
+        }
+        JsonObject body = jsonBody(exchange);
+        if (body == null) {
+            return message(400, "El cuerpo de la solicitud no es un JSON válido");
+        }
+        String missing = firstMissing(body, "nombre", "email", "password");
+        if (missing != null) {
+            return message(400, "El campo " + missing + " es requerido");
+        }
+        StubStore.StubUser user = store.createUser(
+                text(body, "nombre"), text(body, "email"), text(body, "password"));
+        if (user == null) {
+            return message(409, "El email ya está registrado");
+        }
+        JsonObject created = new JsonObject();
+        created.addProperty("mensaje", "Usuario creado exitosamente");
+        created.add("usuario", toJson(user));
+        return json(201, created);
+    }
+
+    private Reply listUsers(Map<String, String> query) {
+        int page = Math.max(0, intParam(query, "page", 0));
+        int size = Math.min(MAX_PAGE_SIZE, Math.max(1, intParam(query, "size", DEFAULT_PAGE_SIZE)));
+        int total = store.countUsers();
+        List<StubStore.StubUser> users = store.page(page, size);
+
+        JsonArray content = new JsonArray();
+        users.forEach(user -> content.add(toJson(user)));
+        JsonObject pageable = new JsonObject();
+        pageable.addProperty("pageNumber", page);
+        pageable.addProperty("pageSize", size);
+        pageable.addProperty("offset", (long) page * size);
+        pageable.addProperty("paged", true);
+        pageable.addProperty("unpaged", false);
+        int totalPages = (total + size - 1) / size;
+
+        JsonObject body = new JsonObject();
+        body.add("content", content);
+        body.add("pageable", pageable);
+        body.addProperty("totalPages", totalPages);
+        body.addProperty("totalElements", total);
+        body.addProperty("last", page >= totalPages - 1);
+        body.addProperty("first", page == 0);
+        body.addProperty("size", size);
+        body.addProperty("number", page);
+        body.addProperty("numberOfElements", users.size());
+        body.addProperty("empty", users.isEmpty());
+        return json(200, body);
+    }
+
+    private Reply searchUsers(Map<String, String> query) {
+        JsonArray matches = new JsonArray();
+        store.searchByName(query.get("name")).forEach(user -> matches.add(toJson(user)));
+        return json(200, matches);
+    }
+
+    private Reply user(String method, String id, StubTokenIssuer.TokenClaims caller, HttpExchange exchange)
+            throws IOException {
+        boolean admin = caller.hasRole(StubStore.ADMIN_ROLE);
+        if (!admin && !id.equals(caller.getSubject())) {
+            return message(403, "Acceso denegado: solo el administrador o el propio usuario");
+        }
+        switch (method) {
+            case "GET": {
+                StubStore.StubUser user = store.findUser(id);
+                return user == null ? notFound(id) : json(200, toJson(user));
+            }
+            case "PUT": {
+                JsonObject body = jsonBody(exchange);
+                if (body == null) {
+                    return message(400, "El cuerpo de la solicitud no es un JSON válido");
+                }
+                String missing = firstMissing(body, "nombre", "email", "password");
+                if (missing != null) {
+                    return message(400, "El campo " + missing + " es requerido");
+                }
+                try {
+                    StubStore.StubUser user = store.updateUser(id,
+                            text(body, "nombre"), text(body, "email"), text(body, "password"));
+                    return user == null ? notFound(id) : json(200, toJson(user));
+                } catch (StubStore.EmailInUseException e) {
+                    return message(409, "El email ya está en uso por otro usuario");
+                }
+            }
+            case "DELETE":
+                if (!admin) {
+                    return message(403, "Acceso denegado: se requiere el rol de administrador");
+                }
+                return store.deleteUser(id) ? new Reply(204, JSON, new byte[0]) : notFound(id);
+            default:
+                return methodNotAllowed(method, "/api/usuarios/{id}");
+        }
+    }
+
+    private Reply changePassword(StubTokenIssuer.TokenClaims caller, HttpExchange exchange) throws IOException {
+        JsonObject body = jsonBody(exchange);
+        String missing = body == null ? "currentPassword" : firstMissing(body, "currentPassword", "newPassword");
+        if (missing != null) {
+            return json(400, object("mensaje", "El campo " + missing + " es requerido"));
+        }
+        if (!store.changePassword(caller.getSubject(), text(body, "currentPassword"), text(body, "newPassword"))) {
+            return json(400, object("mensaje", "La contraseña actual es incorrecta"));
+        }
+        return json(200, object("mensaje", "Contraseña actualizada exitosamente"));
+    }
+
+    // ---------------- Perfiles ----------------
+
+    private Reply profiles(String method, StubTokenIssuer.TokenClaims caller, HttpExchange exchange) throws IOException {
+        switch (method) {
+            case "GET": {
+                JsonObject profile = store.findProfile(caller.getSubject());
+                return profile == null ? message(404, "Perfil no encontrado") : json(200, profile);
+            }
+            case "PUT": {
+                JsonObject body = jsonBody(exchange);
+                if (body == null) {
+                    return message(400, "El cuerpo de la solicitud no es un JSON válido");
+                }
+                if (firstMissing(body, "apodo") != null) {
+                    return message(400, "El campo apodo es requerido");
+                }
+                // Como el gateway real: el dueño del perfil es el 'sub' del token (X-User-ID)
+                JsonObject profile = new JsonObject();
+                profile.addProperty("userId", caller.getSubject());
+                body.entrySet().forEach(field -> {
+                    if (!"userId".equals(field.getKey())) {
+                        profile.add(field.getKey(), field.getValue());
+                    }
+                });
+                store.saveProfile(caller.getSubject(), profile);
+                return json(200, profile);
+            }
+            default:
+                return methodNotAllowed(method, "/api/perfiles");
+        }
+    }
+
+    // ---------------- Utilidades ----------------
+
+    private static JsonObject toJson(StubStore.StubUser user) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", user.getId());
+        json.addProperty("nombre", user.getNombre());
+        json.addProperty("email", user.getEmail());
+        return json;
+    }
+
+    private static JsonObject jsonBody(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            JsonElement json = JsonParser.parseString(body);
+            return json.isJsonObject() ? json.getAsJsonObject() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String firstMissing(JsonObject body, String... fields) {
+        for (String field : fields) {
+            String value = text(body, field);
+            if (value == null || value.isBlank()) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonObject body, String field) {
+        JsonElement value = body.get(field);
+        return value == null || value.isJsonNull() || !value.isJsonPrimitive() ? null : value.getAsString();
+    }
+
+    private static Map<String, String> form(HttpExchange exchange) throws IOException {
+        return decodeParams(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        return decodeParams(exchange.getRequestURI().getRawQuery());
+    }
+
+    private static Map<String, String> decodeParams(String encoded) {
+        Map<String, String> params = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return params;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        try {
+            return params.containsKey(name) ? Integer.parseInt(params.get(name).trim()) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static JsonObject object(String field, String value) {
+        JsonObject json = new JsonObject();
+        json.addProperty(field, value);
+        return json;
+    }
+
+    private static Reply json(int status, JsonElement body) {
+        return new Reply(status, JSON, GSON.toJson(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Reply message(int status, String message) {
+        JsonObject body = object("message", message);
+        body.addProperty("status", status);
+        return json(status, body);
+    }
+
+    private static Reply notFound(String id) {
+        return message(404, "Usuario no encontrado: " + id);
+    }
+
+    private static Reply methodNotAllowed(String method, String path) {
+        return message(405, "Método " + method + " no soportado en " + path);
+    }
+
+    private static Reply oauthError(int status, String error, String description) {
+        JsonObject body = object("error", error);
+        body.addProperty("error_description", description);
+        return json(status, body);
+    }
+
+    private static void send(HttpExchange exchange, Reply reply) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", reply.contentType);
+            if (reply.body.length == 0) {
+                exchange.sendResponseHeaders(reply.status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(reply.status, reply.body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(reply.body);
+            }
+        }
+    }
+
+    private static final class Reply {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+
+        private Reply(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
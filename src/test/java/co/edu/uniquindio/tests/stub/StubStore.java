@@ -0,0 +1,255 @@
+package co.edu.uniquindio.tests.stub;
+
+import com.google.gson.JsonObject;
+import lombok.Getter;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado en memoria del stub: cuentas de Keycloak, usuarios de la API y perfiles.
+ * <p>
+ * Como en el sistema real, crear un usuario en la API también crea su cuenta en el realm
+ * (username = email) y el ID del usuario es el 'sub' de sus tokens. Las lecturas no toman
+ * locks; las escrituras se serializan para mantener el email único.
+ */
+class StubStore {
+
+    static final String ADMIN_ROLE = "admin";
+    static final String USER_ROLE = "user";
+
+    private final Map<String, Account> accountsByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsBySub = new ConcurrentHashMap<>();
+    private final Map<String, RefreshGrant> refreshGrants = new ConcurrentHashMap<>();
+
+    private final Map<String, StubUser> usersById = new ConcurrentHashMap<>();
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+    // Orden de creación: la paginación es estable mientras no haya escrituras
+    private final ConcurrentSkipListMap<Long, StubUser> usersInOrder = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile int userCount;
+
+    private final Map<String, JsonObject> profilesByUserId = new ConcurrentHashMap<>();
+
+    StubStore(String adminUsername, String adminPassword) {
+        String adminSub = UUID.nameUUIDFromBytes(("stub-admin:" + adminUsername).getBytes(StandardCharsets.UTF_8)).toString();
+        addAccount(new Account(adminSub, normalize(adminUsername), adminPassword, Set.of(ADMIN_ROLE, USER_ROLE)));
+    }
+
+    // ---------------- Cuentas del realm ----------------
+
+    /**
+     * Cuenta con esas credenciales, o null si el usuario no existe o la contraseña no coincide.
+     */
+    Account authenticate(String username, String password) {
+        Account account = username == null ? null : accountsByUsername.get(normalize(username));
+        return account != null && account.password.equals(password) ? account : null;
+    }
+
+    Account findAccount(String sub) {
+        return accountsBySub.get(sub);
+    }
+
+    String newRefreshToken(Account account, int ttlSeconds) {
+        String token = UUID.randomUUID() + "." + UUID.randomUUID();
+        refreshGrants.put(token, new RefreshGrant(account.sub, Instant.now().getEpochSecond() + ttlSeconds));
+        return token;
+    }
+
+    /**
+     * Cuenta dueña del refresh token, o null si no existe, expiró o la cuenta fue eliminada.
+     */
+    Account redeemRefreshToken(String token) {
+        RefreshGrant grant = token == null ? null : refreshGrants.get(token);
+        if (grant == null || Instant.now().getEpochSecond() >= grant.expiresAt) {
+            return null;
+        }
+        return accountsBySub.get(grant.sub);
+    }
+
+    void revokeRefreshToken(String token) {
+        if (token != null) {
+            refreshGrants.remove(token);
+        }
+    }
+
+    /**
+     * Cambia la contraseña si la actual coincide; false en caso contrario.
+     */
+    synchronized boolean changePassword(String sub, String currentPassword, String newPassword) {
+        Account account = accountsBySub.get(sub);
+        if (account == null || !account.password.equals(currentPassword)) {
+            return false;
+        }
+        account.password = newPassword;
+        return true;
+    }
+
+    private void addAccount(Account account) {
+        accountsByUsername.put(account.username, account);
+        accountsBySub.put(account.sub, account);
+    }
+
+    private void removeAccount(String sub) {
+        Account account = accountsBySub.remove(sub);
+        if (account != null) {
+            accountsByUsername.remove(account.username);
+        }
+        // Sus refresh tokens dejan de servir: redeemRefreshToken ya no encuentra la cuenta
+    }
+
+    // ---------------- Usuarios de la API ----------------
+
+    /**
+     * Crea el usuario y su cuenta; null si el email ya está registrado.
+     */
+    synchronized StubUser createUser(String nombre, String email, String password) {
+        String key = normalize(email);
+        if (userIdsByEmail.containsKey(key) || accountsByUsername.containsKey(key)) {
+            return null;
+        }
+        StubUser user = new StubUser(sequence.incrementAndGet(), UUID.randomUUID().toString(), nombre, email);
+        usersById.put(user.getId(), user);
+        userIdsByEmail.put(key, user.getId());
+        usersInOrder.put(user.getSequence(), user);
+        userCount++;
+        addAccount(new Account(user.getId(), key, password, Set.of(USER_ROLE)));
+        return user;
+    }
+
+    StubUser findUser(String id) {
+        return usersById.get(id);
+    }
+
+    /**
+     * Actualiza datos y credenciales. Devuelve null si el usuario no existe y lanza
+     * {@link EmailInUseException} si el email pertenece a otro usuario.
+     */
+    synchronized StubUser updateUser(String id, String nombre, String email, String password) {
+        StubUser current = usersById.get(id);
+        if (current == null) {
+            return null;
+        }
+        String key = normalize(email);
+        String owner = userIdsByEmail.get(key);
+        if (owner != null && !owner.equals(id)) {
+            throw new EmailInUseException();
+        }
+        StubUser updated = new StubUser(current.getSequence(), id, nombre, email);
+        usersById.put(id, updated);
+        usersInOrder.put(updated.getSequence(), updated);
+        userIdsByEmail.remove(normalize(current.getEmail()));
+        userIdsByEmail.put(key, id);
+
+        Account account = accountsBySub.get(id);
+        Set<String> roles = account != null ? account.roles : Set.of(USER_ROLE);
+        removeAccount(id);
+        addAccount(new Account(id, key, password, roles));
+        return updated;
+    }
+
+    synchronized boolean deleteUser(String id) {
+        StubUser user = usersById.remove(id);
+        if (user == null) {
+            return false;
+        }
+        usersInOrder.remove(user.getSequence());
+        userIdsByEmail.remove(normalize(user.getEmail()));
+        userCount--;
+        removeAccount(id);
+        profilesByUserId.remove(id);
+        return true;
+    }
+
+    int countUsers() {
+        return userCount;
+    }
+
+    /**
+     * Página de usuarios en orden de creación (paginación por offset, como Spring Data).
+     */
+    List<StubUser> page(int page, int size) {
+        List<StubUser> content = new ArrayList<>(Math.min(size, 1024));
+        long skip = (long) page * size;
+        Iterator<StubUser> iterator = usersInOrder.values().iterator();
+        while (skip-- > 0 && iterator.hasNext()) {
+            iterator.next();
+        }
+        while (content.size() < size && iterator.hasNext()) {
+            content.add(iterator.next());
+        }
+        return content;
+    }
+
+    List<StubUser> searchByName(String name) {
+        String needle = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        List<StubUser> matches = new ArrayList<>();
+        for (StubUser user : usersInOrder.values()) {
+            if (user.getNombre().toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(user);
+            }
+        }
+        return matches;
+    }
+
+    // ---------------- Perfiles ----------------
+
+    JsonObject findProfile(String userId) {
+        return profilesByUserId.get(userId);
+    }
+
+    void saveProfile(String userId, JsonObject profile) {
+        profilesByUserId.put(userId, profile);
+    }
+
+    private static String normalize(String username) {
+        // Keycloak guarda los usernames en minúsculas
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    static final class Account {
+        private final String sub;
+        private final String username;
+        private volatile String password;
+        private final Set<String> roles;
+
+        private Account(String sub, String username, String password, Set<String> roles) {
+            this.sub = sub;
+            this.username = username;
+            this.password = password;
+            this.roles = roles;
+        }
+    }
+
+    @Value
+    static class StubUser {
+        long sequence;
+        String id;
+        String nombre;
+        String email;
+    }
+
+    @Value
+    private static class RefreshGrant {
+        String sub;
+        long expiresAt;
+    }
+
+    static final class EmailInUseException extends RuntimeException {
+        EmailInUseException() {
+            super("El email ya está en uso por otro usuario");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package co.edu.uniquindio.tests.stub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.Value;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Emite y verifica los access tokens del stub: JWT firmados con RS256 con una llave RSA
+ * generada al arrancar, publicada en el JWKS del realm para que {@code JwtVerifier}
+ * los verifique igual que los de Keycloak.
+ */
+class StubTokenIssuer {
+
+    // Mismo límite que la caché de JwtVerifier; al superarlo se vacía completamente
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    private final KeyPair keyPair;
+    private final String keyId;
+    private final String issuer;
+    private final int ttlSeconds;
+    private final ConcurrentMap<String, TokenClaims> verified = new ConcurrentHashMap<>();
+
+    StubTokenIssuer(String issuer, int ttlSeconds) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            this.keyPair = generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("No se pudo generar la llave RSA del stub", e);
+        }
+        this.keyId = "stub-" + UUID.randomUUID();
+        this.issuer = issuer;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    String issue(StubStore.Account account, String clientId) {
+        long now = Instant.now().getEpochSecond();
+        JsonObject payload = new JsonObject();
+        payload.addProperty("exp", now + ttlSeconds);
+        payload.addProperty("iat", now);
+        payload.addProperty("jti", UUID.randomUUID().toString());
+        payload.addProperty("iss", issuer);
+        payload.addProperty("aud", "account");
+        payload.addProperty("sub", account.getSub());
+        payload.addProperty("typ", "Bearer");
+        payload.addProperty("azp", clientId);
+        payload.addProperty("preferred_username", account.getUsername());
+        payload.addProperty("email", account.getUsername());
+        JsonObject realmAccess = new JsonObject();
+        JsonArray roles = new JsonArray();
+        account.getRoles().forEach(roles::add);
+        realmAccess.add("roles", roles);
+        payload.add("realm_access", realmAccess);
+        payload.addProperty("scope", "profile email");
+
+        return sign(payload);
+    }
+
+    /**
+     * Firma un payload arbitrario con la llave del stub (la usa también el replay de cassettes
+     * para volver a emitir los tokens grabados con fechas vigentes).
+     */
+    String sign(JsonObject payload) {
+        JsonObject header = new JsonObject();
+        header.addProperty("alg", "RS256");
+        header.addProperty("typ", "JWT");
+        header.addProperty("kid", keyId);
+
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString(header.toString().getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encoder.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("No se pudo firmar el token del stub", e);
+        }
+    }
+
+    /**
+     * Claims del token si la firma es del stub y no expiró; null en cualquier otro caso.
+     * La firma de cada token se verifica una sola vez.
+     */
+    TokenClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        TokenClaims claims = verified.get(token);
+        if (claims == null) {
+            claims = parseAndVerify(token);
+            if (claims == null) {
+                return null;
+            }
+            if (verified.size() >= MAX_CACHED_TOKENS) {
+                verified.clear();
+            }
+            verified.put(token, claims);
+        }
+        return Instant.now().getEpochSecond() < claims.getExpiresAt() ? claims : null;
+    }
+
+    private TokenClaims parseAndVerify(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(keyPair.getPublic());
+            signature.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(decoder.decode(token.substring(secondDot + 1)))) {
+                return null;
+            }
+            JsonObject payload = JsonParser.parseString(new String(
+                    decoder.decode(token.substring(firstDot + 1, secondDot)), StandardCharsets.UTF_8)).getAsJsonObject();
+            Set<String> roles = new LinkedHashSet<>();
+            for (JsonElement role : payload.getAsJsonObject("realm_access").getAsJsonArray("roles")) {
+                roles.add(role.getAsString());
+            }
+            return new TokenClaims(payload.get("sub").getAsString(),
+                    payload.get("preferred_username").getAsString(),
+                    Collections.unmodifiableSet(roles),
+                    payload.get("exp").getAsLong());
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    JsonObject jwks() {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        JsonObject key = new JsonObject();
+        key.addProperty("kid", keyId);
+        key.addProperty("kty", "RSA");
+        key.addProperty("alg", "RS256");
+        key.addProperty("use", "sig");
+        key.addProperty("n", base64Url(publicKey.getModulus()));
+        key.addProperty("e", base64Url(publicKey.getPublicExponent()));
+        JsonArray keys = new JsonArray();
+        keys.add(key);
+        JsonObject jwks = new JsonObject();
+        jwks.add("keys", keys);
+        return jwks;
+    }
+
+    /**
+     * Entero sin signo en base64url, como lo publica Keycloak.
+     */
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Value
+    static class TokenClaims {
+        String subject;
+        String username;
+        Set<String> roles;
+        long expiresAt;
+
+        boolean hasRole(String role) {
+            return roles.contains(role);
+        }
+    }
+}
@@ -5,18 +5,18 @@ import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import lombok.extern.slf4j.Slf4j;
 
-import static io.restassured.RestAssured.given;
-
 @Slf4j
 public class ApiClient {
 
-    private static ApiClient instance;
+    private static volatile ApiClient instance;
     private final TestConfig config;
     private final TokenClient tokenClient;
+    private final HttpTransport transport;
 
     private ApiClient() {
         this.config = TestConfig.getInstance();
         this.tokenClient = TokenClient.getInstance();
+        this.transport = HttpTransport.getInstance();
     }
 
     public static ApiClient getInstance() {
@@ -31,10 +31,9 @@ public class ApiClient {
     }
 
     public RequestSpecification baseRequest() {
-        return given()
+        return transport.request()
                 .contentType("application/json")
-                .accept("application/json")
-                .log().all();
+                .accept("application/json");
     }
 
     public RequestSpecification authenticatedRequest(String token) {
@@ -57,7 +56,6 @@ public class ApiClient {
                 .when()
                 .get(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
@@ -67,7 +65,6 @@ public class ApiClient {
                 .when()
                 .get(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
@@ -78,19 +75,28 @@ public class ApiClient {
                 .when()
                 .post(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
     public Response postAuthenticated(String endpoint, Object body, String token) {
         log.debug("POST (autenticado): {}", endpoint);
-        return authenticatedRequest(token)
+        Response response = authenticatedRequest(token)
                 .body(body)
                 .when()
                 .post(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
+        trackCreatedUser(endpoint, response);
+        return response;
+    }
+
+    /**
+     * Los usuarios creados quedan registrados para eliminarlos al terminar el escenario.
+     */
+    private void trackCreatedUser(String endpoint, Response response) {
+        if (response.statusCode() == 201 && endpoint.equals(config.getUsersEndpoint())) {
+            UserCleanup.getInstance().track(UserSeeder.extractUserId(response));
+        }
     }
 
     public Response putAuthenticated(String endpoint, Object body, String token) {
@@ -100,7 +106,6 @@ public class ApiClient {
                 .when()
                 .put(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
@@ -111,7 +116,6 @@ public class ApiClient {
                 .when()
                 .patch(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
@@ -121,7 +125,6 @@ public class ApiClient {
                 .when()
                 .delete(endpoint)
                 .then()
-                .log().all()
                 .extract().response();
     }
 
@@ -8,8 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import java.util.HashMap;
 import java.util.Map;
 
-import static io.restassured.RestAssured.given;
-
 /**
  * Cliente encargado de manejar la autenticación y obtener información del usuario
  * desde Keycloak (u otro servidor compatible con OpenID Connect).
@@ -17,11 +15,13 @@ import static io.restassured.RestAssured.given;
 @Slf4j
 public class AuthClient {
 
-    private static AuthClient instance;
+    private static volatile AuthClient instance;
     private final TestConfig config; // Guardamos la config completa
+    private final HttpTransport transport;
 
     private AuthClient() {
         this.config = TestConfig.getInstance();
+        this.transport = HttpTransport.getInstance();
     }
 
     public static AuthClient getInstance() {
@@ -69,7 +69,7 @@ public class AuthClient {
             formParams.put("client_secret", clientSecret);
         }
 
-        Response response = given()
+        Response response = transport.request()
                 .contentType(ContentType.URLENC)
                 .formParams(formParams)
                 .when()
@@ -81,6 +81,33 @@ public class AuthClient {
         return response;
     }
 
+    /**
+     * Renueva un token con el grant 'refresh_token' en el realm 'taller'.
+     * Es mucho más barato para Keycloak que un password grant (no recalcula el hash).
+     */
+    public Response refreshTokenResponse(String refreshToken) {
+        log.debug("Renovando token con refresh_token (realm taller)");
+
+        Map<String, String> formParams = new HashMap<>();
+        formParams.put("grant_type", "refresh_token");
+        formParams.put("client_id", config.getKeycloakClientId());
+        formParams.put("refresh_token", refreshToken);
+
+        String clientSecret = config.getKeycloakClientSecret();
+        if (clientSecret != null && !clientSecret.isEmpty()) {
+            formParams.put("client_secret", clientSecret);
+        }
+
+        Response response = transport.request()
+                .contentType(ContentType.URLENC)
+                .formParams(formParams)
+                .when()
+                .post(config.getKeycloakTokenUrl());
+
+        log.debug("Refresh token → status={}", response.statusCode());
+        return response;
+    }
+
     /**
      * Obtiene el access_token y lanza excepción si la respuesta no es exitosa.
      * (Este método no cambia, seguirá usando el realm por defecto 'taller')
@@ -91,7 +118,7 @@ public class AuthClient {
             log.error("Error obteniendo token. Status: {}, Body: {}", r.statusCode(), safeBody(r));
             throw new RuntimeException("No se pudo obtener el token de acceso. Status: " + r.statusCode());
         }
-        String token = r.jsonPath().getString("access_token");
+        String token = ResponseView.of(r).getString("access_token");
         log.debug("Token obtenido correctamente para {} ({} caracteres)", username, token != null ? token.length() : 0);
         return token;
     }
@@ -102,7 +129,7 @@ public class AuthClient {
      */
     public Response getUserInfo(String accessToken) {
         log.debug("Llamando al endpoint userinfo");
-        Response response = given()
+        Response response = transport.request()
                 .header("Authorization", "Bearer " + accessToken)
                 .when()
                 .get(config.getKeycloakUserInfoUrl()); // Usa la URL de config
@@ -111,6 +138,20 @@ public class AuthClient {
         return response;
     }
 
+    /**
+     * Descarga las llaves públicas (JWKS) del realm para verificar tokens localmente.
+     */
+    public Response getJwks() {
+        log.debug("Descargando JWKS del realm");
+        Response response = transport.request()
+                .accept(ContentType.JSON)
+                .when()
+                .get(config.getKeycloakJwksUrl());
+
+        log.debug("JWKS → status={}", response.statusCode());
+        return response;
+    }
+
     private String safeBody(Response response) {
         try {
             return response.getBody() != null ? response.getBody().asString() : "(sin cuerpo)";
@@ -0,0 +1,42 @@
+package co.edu.uniquindio.tests.support;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Filtro de RestAssured que guarda cada intercambio en el {@link ExchangeRecorder} del hilo actual.
+ */
+public class ExchangeCaptureFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        long start = System.nanoTime();
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            record(requestSpec, response, null, start);
+            return response;
+        } catch (Throwable e) {
+            // Throwable: RestAssured lanza IOException (p. ej. Connection reset) sin declararla,
+            // y esas fallas son las que más necesitan el intercambio en el reporte
+            record(requestSpec, null, e, start);
+            throw e;
+        }
+    }
+
+    private void record(FilterableRequestSpecification requestSpec, Response response, Throwable error, long start) {
+        ExchangeRecorder.record(
+                requestSpec.getMethod(),
+                requestSpec.getURI(),
+                requestSpec.getHeaders(),
+                requestSpec.getBody(),
+                requestSpec.getFormParams(),
+                response,
+                error,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,154 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Buffer circular por escenario (ThreadLocal) con los últimos intercambios HTTP.
+ * Capturar solo guarda referencias; el texto se arma únicamente cuando el escenario
+ * falla, en lugar de imprimir cada solicitud y respuesta con log().all().
+ * Las contraseñas y secretos se enmascaran tanto en los form params como en los body JSON.
+ */
+public class ExchangeRecorder {
+
+    private static final Set<String> SENSITIVE_FIELDS = Set.of("password", "client_secret", "refresh_token");
+
+    private static final ThreadLocal<ArrayDeque<Exchange>> exchangesHolder =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    private ExchangeRecorder() {
+    }
+
+    private static boolean isSensitive(String field) {
+        return SENSITIVE_FIELDS.contains(field) || field.toLowerCase(Locale.ROOT).contains("password");
+    }
+
+    public static void record(String method, String uri, Headers headers, Object body,
+                              Map<String, String> formParams, Response response,
+                              Throwable error, long durationMs) {
+        ArrayDeque<Exchange> exchanges = exchangesHolder.get();
+        if (exchanges.size() >= TestConfig.getInstance().getHttpCaptureSize()) {
+            exchanges.pollFirst();
+        }
+        exchanges.addLast(new Exchange(method, uri, headers, body, formParams, response, error, durationMs));
+    }
+
+    public static int size() {
+        return exchangesHolder.get().size();
+    }
+
+    public static void clear() {
+        exchangesHolder.remove();
+    }
+
+    /**
+     * Arma el texto de los intercambios capturados en el hilo actual (del más antiguo al más reciente).
+     */
+    public static String render() {
+        StringBuilder sb = new StringBuilder();
+        int index = 1;
+        for (Exchange exchange : exchangesHolder.get()) {
+            exchange.appendTo(sb, index++);
+        }
+        return sb.toString();
+    }
+
+    private record Exchange(String method, String uri, Headers headers, Object body,
+                            Map<String, String> formParams, Response response,
+                            Throwable error, long durationMs) {
+
+        void appendTo(StringBuilder sb, int index) {
+            sb.append("#").append(index).append(' ').append(method).append(' ').append(uri)
+                    .append(" (").append(durationMs).append(" ms)\n");
+
+            sb.append("  >> Headers:\n");
+            if (headers != null) {
+                for (Header header : headers) {
+                    sb.append("       ").append(header.getName()).append(": ")
+                            .append(maskHeader(header)).append('\n');
+                }
+            }
+            if (formParams != null && !formParams.isEmpty()) {
+                sb.append("  >> Form params:\n");
+                formParams.forEach((name, value) -> sb.append("       ").append(name).append('=')
+                        .append(isSensitive(name) ? "***" : value).append('\n'));
+            }
+            if (body != null) {
+                sb.append("  >> Body: ").append(maskBody(body)).append('\n');
+            }
+
+            if (error != null) {
+                sb.append("  << Error: ").append(error).append("\n\n");
+                return;
+            }
+            if (response != null) {
+                sb.append("  << ").append(response.getStatusLine()).append('\n');
+                for (Header header : response.getHeaders()) {
+                    sb.append("       ").append(header.getName()).append(": ").append(header.getValue()).append('\n');
+                }
+                sb.append("  << Body: ").append(safeBody(response)).append('\n');
+            }
+            sb.append('\n');
+        }
+
+        private static String maskHeader(Header header) {
+            String value = header.getValue();
+            if ("Authorization".equalsIgnoreCase(header.getName()) && value != null && value.length() > 20) {
+                return value.substring(0, 20) + "...";
+            }
+            return value;
+        }
+
+        /**
+         * El body como texto; si es JSON, con los campos sensibles reemplazados por "***"
+         * (p. ej. password al crear un usuario, currentPassword/newPassword al cambiarla).
+         */
+        private static String maskBody(Object body) {
+            String text = body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(body);
+            try {
+                JsonElement json = JsonParser.parseString(text);
+                if (json.isJsonObject() || json.isJsonArray()) {
+                    maskJson(json);
+                    return json.toString();
+                }
+            } catch (JsonParseException e) {
+                // No es JSON: se muestra tal cual
+            }
+            return text;
+        }
+
+        private static void maskJson(JsonElement element) {
+            if (element.isJsonArray()) {
+                element.getAsJsonArray().forEach(Exchange::maskJson);
+            } else if (element.isJsonObject()) {
+                for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                    if (isSensitive(member.getKey()) && !member.getValue().isJsonNull()) {
+                        member.setValue(new JsonPrimitive("***"));
+                    } else {
+                        maskJson(member.getValue());
+                    }
+                }
+            }
+        }
+
+        private static String safeBody(Response response) {
+            try {
+                return response.asString();
+            } catch (Exception e) {
+                return "(error leyendo body)";
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSpecification;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.AbstractHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Transporte HTTP compartido por {@link ApiClient} y {@link AuthClient}.
+ * <p>
+ * Por defecto RestAssured crea un cliente HTTP (y conexiones nuevas) en cada solicitud.
+ * Aquí cada solicitud usa un cliente liviano que toma sus conexiones de un único pool
+ * con keep-alive, límite por host y timeouts configurables en test.properties.
+ * No se comparte la instancia del cliente porque RestAssured modifica sus parámetros
+ * e interceptores en cada solicitud y eso no es seguro entre hilos.
+ */
+@Slf4j
+@SuppressWarnings("deprecation") // RestAssured 5 exige un AbstractHttpClient (API clásica de HttpClient 4)
+public class HttpTransport {
+
+    private static volatile HttpTransport instance;
+
+    private final PoolingClientConnectionManager connectionManager;
+    private final HttpClientConfig httpClientConfig;
+    private final ExchangeCaptureFilter captureFilter;
+    private final LatencyFilter latencyFilter;
+    private final CassetteFilter cassetteFilter;
+    private final ScheduledExecutorService maintenance;
+    private final AtomicInteger peakLeased;
+    private final long keepAliveMs;
+
+    private HttpTransport() {
+        TestConfig config = TestConfig.getInstance();
+        this.keepAliveMs = config.getHttpKeepAliveMs();
+        this.peakLeased = new AtomicInteger();
+        this.captureFilter = new ExchangeCaptureFilter();
+        this.latencyFilter = new LatencyFilter();
+        this.cassetteFilter = CassetteFilter.getInstance();
+
+        this.connectionManager = new TimedConnectionManager();
+        connectionManager.setMaxTotal(config.getHttpPoolMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getHttpPoolMaxPerRoute());
+
+        this.httpClientConfig = HttpClientConfig.httpClientConfig()
+                .httpClientFactory(this::newClient)
+                .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, config.getHttpConnectTimeoutMs())
+                .setParam(CoreConnectionPNames.SO_TIMEOUT, config.getHttpReadTimeoutMs())
+                // Tiempo máximo esperando una conexión libre del pool
+                .setParam(ClientPNames.CONN_MANAGER_TIMEOUT, (long) config.getHttpConnectTimeoutMs());
+
+        // Cierra conexiones vencidas u ociosas y registra el pico de conexiones en uso
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleAtFixedRate(this::maintainPool, 250, 250, TimeUnit.MILLISECONDS);
+
+        log.debug("Pool HTTP: maxTotal={}, maxPorHost={}, keepAlive={}ms, connect={}ms, read={}ms",
+                config.getHttpPoolMaxTotal(), config.getHttpPoolMaxPerRoute(), keepAliveMs,
+                config.getHttpConnectTimeoutMs(), config.getHttpReadTimeoutMs());
+    }
+
+    public static HttpTransport getInstance() {
+        if (instance == null) {
+            synchronized (HttpTransport.class) {
+                if (instance == null) {
+                    instance = new HttpTransport();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Punto de partida de toda solicitud: equivalente a {@code given()} pero usando el pool
+     * capturando el intercambio para el reporte de escenarios fallidos y midiendo su latencia.
+     * Con cassette.mode=record|replay la solicitud además se graba o se responde del cassette.
+     */
+    public RequestSpecification request() {
+        // La espera en el UserWriteGate no cuenta como latencia de la solicitud
+        RequestSpecification request = given()
+                .config(RestAssured.config().httpClient(httpClientConfig))
+                .filter(UserWriteGate.getInstance())
+                .filter(captureFilter)
+                .filter(latencyFilter);
+        return withCassette(request).filter(HttpTransport::releaseConnection);
+    }
+
+    /**
+     * Como {@link #request()} pero sin capturar ni medir la solicitud: para consultas de
+     * infraestructura (p. ej. el health) que no deben contar en las métricas de los escenarios.
+     */
+    public RequestSpecification unmeasuredRequest() {
+        RequestSpecification request = given()
+                .config(RestAssured.config().httpClient(httpClientConfig));
+        return withCassette(request).filter(HttpTransport::releaseConnection);
+    }
+
+    /**
+     * Como {@link #unmeasuredRequest()} pero sin leer el body: quien la usa lo consume con
+     * {@code response.asInputStream()} y debe cerrarlo para devolver la conexión al pool.
+     * Para respuestas grandes (p. ej. /actuator/prometheus) que se procesan en streaming.
+     */
+    public RequestSpecification streamingRequest() {
+        return withCassette(given().config(RestAssured.config().httpClient(httpClientConfig)));
+    }
+
+    private RequestSpecification withCassette(RequestSpecification request) {
+        return cassetteFilter.isEnabled() ? request.filter(cassetteFilter) : request;
+    }
+
+    /**
+     * RestAssured no lee el body hasta que alguien lo pide y, mientras tanto, la conexión
+     * sigue tomada del pool. Leerlo aquí (queda en memoria en la respuesta) la devuelve
+     * al pool de inmediato y evita que el pool se agote.
+     */
+    private static Response releaseConnection(FilterableRequestSpecification requestSpec,
+                                              FilterableResponseSpecification responseSpec,
+                                              FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        response.asByteArray();
+        return response;
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        return new PoolMetrics(stats.getLeased(), stats.getPending(), stats.getAvailable(),
+                stats.getMax(), Math.max(peakLeased.get(), stats.getLeased()));
+    }
+
+    private AbstractHttpClient newClient() {
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
+        client.setKeepAliveStrategy(this::keepAliveDuration);
+        client.addRequestInterceptor(HttpTransport::markRequestSent);
+        client.addResponseInterceptor((response, context) -> RequestPhases.firstByteReceived());
+        return client;
+    }
+
+    private static void markRequestSent(HttpRequest request, HttpContext context) {
+        long bytesOut = request instanceof HttpEntityEnclosingRequest enclosing && enclosing.getEntity() != null
+                ? enclosing.getEntity().getContentLength()
+                : 0;
+        RequestPhases.requestSent(bytesOut);
+    }
+
+    /**
+     * Respeta el "Keep-Alive: timeout" del servidor, sin superar el máximo configurado.
+     */
+    private long keepAliveDuration(HttpResponse response, HttpContext context) {
+        long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMs) : keepAliveMs;
+    }
+
+    private void maintainPool() {
+        try {
+            peakLeased.accumulateAndGet(connectionManager.getTotalStats().getLeased(), Math::max);
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(keepAliveMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.debug("Error en mantenimiento del pool HTTP: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pool que mide cuánto tarda en abrirse cada conexión nueva (TCP + TLS).
+     */
+    private static class TimedConnectionManager extends PoolingClientConnectionManager {
+
+        @Override
+        protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+            return new DefaultClientConnectionOperator(schemeRegistry) {
+                @Override
+                public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local,
+                                           HttpContext context, HttpParams params) throws IOException {
+                    long start = System.nanoTime();
+                    try {
+                        super.openConnection(conn, target, local, context, params);
+                    } finally {
+                        RequestPhases.connected(System.nanoTime() - start);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Utilización del pool: conexiones en uso, en espera, libres, máximo y pico observado en uso.
+     */
+    @Value
+    public static class PoolMetrics {
+        int leased;
+        int pending;
+        int available;
+        int max;
+        int peakLeased;
+    }
+}
@@ -0,0 +1,140 @@
+package co.edu.uniquindio.tests.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Conjunto de IDs de usuario guardados como dos long (las mitades del UUID) en arreglos
+ * primitivos con direccionamiento abierto: 16 bytes por ID frente a los ~150 de un
+ * String en un HashSet, así que 100k IDs ocupan unos 3 MB.
+ * <p>
+ * Los IDs numéricos se guardan como su valor; cualquier otro texto, como dos hashes
+ * independientes de 64 bits (una colisión es despreciable para el tamaño de la tabla).
+ * Es thread-safe: las operaciones son synchronized.
+ */
+public class IdSet {
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    // La pareja (0, 0) marca una celda vacía; el ID que se codifica así se registra aparte
+    private long[] high;
+    private long[] low;
+    private int size;
+    private boolean containsZero;
+
+    public IdSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public IdSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, expectedSize * 2) - 1) << 1;
+        this.high = new long[capacity];
+        this.low = new long[capacity];
+    }
+
+    /**
+     * Agrega el ID; false si ya estaba.
+     */
+    public synchronized boolean add(String id) {
+        long[] key = encode(id);
+        return insert(key[0], key[1]);
+    }
+
+    public synchronized boolean contains(String id) {
+        long[] key = encode(id);
+        if (key[0] == 0 && key[1] == 0) {
+            return containsZero;
+        }
+        int mask = high.length - 1;
+        for (int slot = slot(key[0], key[1], mask); ; slot = (slot + 1) & mask) {
+            if (high[slot] == 0 && low[slot] == 0) {
+                return false;
+            }
+            if (high[slot] == key[0] && low[slot] == key[1]) {
+                return true;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private boolean insert(long hi, long lo) {
+        if (hi == 0 && lo == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = high.length - 1;
+        int slot = slot(hi, lo, mask);
+        while (high[slot] != 0 || low[slot] != 0) {
+            if (high[slot] == hi && low[slot] == lo) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        high[slot] = hi;
+        low[slot] = lo;
+        size++;
+        // Factor de carga máximo 0.5: las búsquedas recorren pocas celdas
+        if (size * 2 > high.length) {
+            grow();
+        }
+        return true;
+    }
+
+    private void grow() {
+        long[] oldHigh = high;
+        long[] oldLow = low;
+        high = new long[oldHigh.length * 2];
+        low = new long[oldLow.length * 2];
+        int mask = high.length - 1;
+        for (int i = 0; i < oldHigh.length; i++) {
+            if (oldHigh[i] != 0 || oldLow[i] != 0) {
+                int slot = slot(oldHigh[i], oldLow[i], mask);
+                while (high[slot] != 0 || low[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                high[slot] = oldHigh[i];
+                low[slot] = oldLow[i];
+            }
+        }
+    }
+
+    private static int slot(long hi, long lo, int mask) {
+        long hash = hi * 0x9E3779B97F4A7C15L ^ lo;
+        hash ^= hash >>> 32;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ (hash >>> 29)) & mask;
+    }
+
+    private static long[] encode(String id) {
+        if (id.length() == 36 && id.charAt(8) == '-') {
+            try {
+                UUID uuid = UUID.fromString(id);
+                return new long[]{uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()};
+            } catch (IllegalArgumentException e) {
+                // No es un UUID: se codifica como texto
+            }
+        }
+        if (!id.isEmpty() && id.length() <= 18 && id.chars().allMatch(Character::isDigit)) {
+            // La mitad alta distingue los IDs numéricos de los UUID con mitad alta 0
+            return new long[]{Long.MIN_VALUE, Long.parseLong(id)};
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        return new long[]{fnv1a(bytes, 0xcbf29ce484222325L), fnv1a(bytes, 0x84222325cbf29ce4L)};
+    }
+
+    private static long fnv1a(byte[] bytes, long seed) {
+        long hash = seed;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,256 @@
+package co.edu.uniquindio.tests.support;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.restassured.response.Response;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Verifica tokens JWT localmente con las llaves públicas (JWKS) del realm,
+ * en lugar de consultar a Keycloak en cada validación.
+ * El JWKS se descarga una sola vez (y de nuevo solo si aparece un 'kid' desconocido)
+ * y los claims decodificados se guardan en caché por token.
+ */
+@Slf4j
+public class JwtVerifier {
+
+    private static volatile JwtVerifier instance;
+
+    // Límite de tokens en caché; al superarlo se vacía completamente
+    private static final int MAX_CACHED_TOKENS = 10_000;
+
+    private static final Map<String, String> SIGNATURE_ALGORITHMS = Map.of(
+            "RS256", "SHA256withRSA",
+            "RS384", "SHA384withRSA",
+            "RS512", "SHA512withRSA");
+
+    private final AuthClient authClient;
+    private final ConcurrentMap<String, JwtClaims> claimsCache;
+    private final ConcurrentMap<String, PublicKey> signingKeys;
+
+    private JwtVerifier() {
+        this.authClient = AuthClient.getInstance();
+        this.claimsCache = new ConcurrentHashMap<>();
+        this.signingKeys = new ConcurrentHashMap<>();
+    }
+
+    public static JwtVerifier getInstance() {
+        if (instance == null) {
+            synchronized (JwtVerifier.class) {
+                if (instance == null) {
+                    instance = new JwtVerifier();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Decodifica el token (sin verificar la firma) y devuelve sus claims.
+     * Cada token se decodifica una sola vez.
+     */
+    public JwtClaims decode(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Token JWT vacío");
+        }
+        JwtClaims claims = claimsCache.get(token);
+        if (claims != null) {
+            return claims;
+        }
+
+        claims = JwtClaims.parse(token);
+        if (claimsCache.size() >= MAX_CACHED_TOKENS) {
+            claimsCache.clear();
+        }
+        JwtClaims previous = claimsCache.putIfAbsent(token, claims);
+        return previous != null ? previous : claims;
+    }
+
+    /**
+     * Verifica la firma y la expiración del token con el JWKS del realm.
+     * Lanza una excepción si el token no es válido.
+     */
+    public JwtClaims verify(String token) {
+        JwtClaims claims = decode(token);
+
+        if (!claims.isSignatureVerified()) {
+            verifySignature(claims);
+            claims.markSignatureVerified();
+        }
+
+        if (claims.isExpired()) {
+            throw new RuntimeException("Token JWT expirado (exp=" + claims.getExpiresAt() + ")");
+        }
+        return claims;
+    }
+
+    private void verifySignature(JwtClaims claims) {
+        String javaAlgorithm = SIGNATURE_ALGORITHMS.get(claims.getAlgorithm());
+        if (javaAlgorithm == null) {
+            throw new RuntimeException("Algoritmo de firma no soportado: " + claims.getAlgorithm());
+        }
+
+        PublicKey key = findSigningKey(claims.getKeyId());
+        try {
+            Signature signature = Signature.getInstance(javaAlgorithm);
+            signature.initVerify(key);
+            signature.update(claims.getSigningInput());
+            if (!signature.verify(claims.getSignature())) {
+                throw new RuntimeException("Firma del token JWT inválida");
+            }
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("No se pudo verificar la firma del JWT: " + e.getMessage(), e);
+        }
+    }
+
+    private PublicKey findSigningKey(String keyId) {
+        PublicKey key = signingKeys.get(keyId);
+        if (key != null) {
+            return key;
+        }
+        // 'kid' desconocido: puede ser la primera verificación o una rotación de llaves
+        synchronized (this) {
+            key = signingKeys.get(keyId);
+            if (key == null) {
+                loadJwks();
+                key = signingKeys.get(keyId);
+            }
+        }
+        if (key == null) {
+            throw new RuntimeException("No existe llave pública en el JWKS para kid=" + keyId);
+        }
+        return key;
+    }
+
+    private void loadJwks() {
+        Response response = authClient.getJwks();
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("No se pudo descargar el JWKS. Status: " + response.statusCode());
+        }
+
+        JsonArray keys = JsonParser.parseString(response.asString()).getAsJsonObject().getAsJsonArray("keys");
+        for (JsonElement element : keys) {
+            JsonObject jwk = element.getAsJsonObject();
+            boolean isSigningKey = !jwk.has("use") || "sig".equals(jwk.get("use").getAsString());
+            if (!"RSA".equals(jwk.get("kty").getAsString()) || !isSigningKey) {
+                continue;
+            }
+            try {
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.get("n").getAsString()));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.get("e").getAsString()));
+                PublicKey key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+                signingKeys.put(jwk.get("kid").getAsString(), key);
+            } catch (GeneralSecurityException e) {
+                log.warn("Llave del JWKS ignorada (kid={}): {}", jwk.get("kid"), e.getMessage());
+            }
+        }
+        log.debug("JWKS cargado: {} llaves de firma", signingKeys.size());
+    }
+
+    /**
+     * Claims de un JWT decodificados una sola vez.
+     */
+    @Getter
+    public static class JwtClaims {
+        private final String algorithm;
+        private final String keyId;
+        private final String subject;
+        private final String preferredUsername;
+        private final String issuer;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final Set<String> roles;
+        @Getter(AccessLevel.NONE)
+        private final byte[] signingInput;
+        @Getter(AccessLevel.NONE)
+        private final byte[] signature;
+        private volatile boolean signatureVerified;
+
+        private JwtClaims(JsonObject header, JsonObject payload, byte[] signingInput, byte[] signature) {
+            this.algorithm = stringOrNull(header, "alg");
+            this.keyId = stringOrNull(header, "kid");
+            this.subject = stringOrNull(payload, "sub");
+            this.preferredUsername = stringOrNull(payload, "preferred_username");
+            this.issuer = stringOrNull(payload, "iss");
+            this.issuedAt = payload.has("iat") ? payload.get("iat").getAsLong() : 0L;
+            this.expiresAt = payload.has("exp") ? payload.get("exp").getAsLong() : 0L;
+            this.roles = readRealmRoles(payload);
+            this.signingInput = signingInput;
+            this.signature = signature;
+        }
+
+        static JwtClaims parse(String token) {
+            int firstDot = token.indexOf('.');
+            int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+            if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+                throw new IllegalArgumentException("El JWT debe tener 3 partes");
+            }
+
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            JsonObject header = parseJson(decoder.decode(token.substring(0, firstDot)));
+            JsonObject payload = parseJson(decoder.decode(token.substring(firstDot + 1, secondDot)));
+            byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+            byte[] signature = decoder.decode(token.substring(secondDot + 1));
+            return new JwtClaims(header, payload, signingInput, signature);
+        }
+
+        byte[] getSigningInput() {
+            return signingInput;
+        }
+
+        byte[] getSignature() {
+            return signature;
+        }
+
+        void markSignatureVerified() {
+            this.signatureVerified = true;
+        }
+
+        public boolean isExpired() {
+            return expiresAt > 0 && Instant.now().getEpochSecond() >= expiresAt;
+        }
+
+        public boolean hasRole(String role) {
+            return roles.contains(role);
+        }
+
+        private static JsonObject parseJson(byte[] json) {
+            return JsonParser.parseString(new String(json, StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+
+        private static String stringOrNull(JsonObject json, String field) {
+            JsonElement value = json.get(field);
+            return value != null && !value.isJsonNull() ? value.getAsString() : null;
+        }
+
+        private static Set<String> readRealmRoles(JsonObject payload) {
+            JsonObject realmAccess = payload.has("realm_access") ? payload.getAsJsonObject("realm_access") : null;
+            if (realmAccess == null || !realmAccess.has("roles")) {
+                return Collections.emptySet();
+            }
+            Set<String> roles = new LinkedHashSet<>();
+            realmAccess.getAsJsonArray("roles").forEach(role -> roles.add(role.getAsString()));
+            return Collections.unmodifiableSet(roles);
+        }
+    }
+}
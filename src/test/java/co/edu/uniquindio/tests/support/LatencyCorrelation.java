@@ -0,0 +1,180 @@
+package co.edu.uniquindio.tests.support;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cruza, por endpoint, la latencia medida por el cliente ({@link RequestMetrics}) con la que
+ * registró el servidor en http_server_requests_seconds ({@link MetricsSnapshot.Delta}) en la
+ * misma ventana, para ver dónde se va el tiempo de una solicitud lenta:
+ * <ul>
+ *     <li>conexión: TCP + TLS de las conexiones nuevas, repartido entre todas las solicitudes;</li>
+ *     <li>red/gateway: desde el envío hasta el primer byte, menos lo que tardó la aplicación;</li>
+ *     <li>aplicación: el tiempo que midió el propio servicio;</li>
+ *     <li>descarga: desde el primer byte hasta tener el body completo en el cliente.</li>
+ * </ul>
+ * Se comparan promedios porque son aditivos; los percentiles de cliente y servidor se
+ * muestran lado a lado pero no se restan. Las rutas de Keycloak y de /actuator no tienen
+ * métricas del servidor y quedan solo con el lado del cliente. Si las cantidades de cliente
+ * y servidor difieren, parte del tráfico no pasó por el transporte medido (el calentamiento,
+ * otros clientes del entorno) y los promedios de esa fila no son del todo comparables.
+ */
+@Slf4j
+public final class LatencyCorrelation {
+
+    private LatencyCorrelation() {
+    }
+
+    public static List<Row> correlate(Map<String, RequestMetrics.EndpointPhases> client, MetricsSnapshot.Delta server) {
+        Map<String, MetricsSnapshot.EndpointStats> serverEndpoints = server.getEndpoints();
+        Set<String> matchedServer = new HashSet<>();
+        List<Row> rows = new ArrayList<>();
+
+        client.forEach((endpoint, phases) -> {
+            String serverKey = matchServerEndpoint(endpoint, serverEndpoints.keySet());
+            MetricsSnapshot.EndpointStats stats = serverKey != null ? serverEndpoints.get(serverKey) : null;
+            if (serverKey != null) {
+                matchedServer.add(serverKey);
+            }
+            rows.add(new Row(endpoint, phases.getCount(), stats != null ? stats.getCount() : 0,
+                    phases.getTotalMeanMs(), phases.getTotalP95Ms(), phases.getConnectMeanMs(),
+                    phases.getFirstByteMeanMs(),
+                    stats != null ? stats.meanMs().orElse(Double.NaN) : Double.NaN,
+                    stats != null ? stats.percentileMs(95).orElse(Double.NaN) : Double.NaN));
+        });
+
+        // Lo que el servidor atendió sin pasar por este cliente (otros clientes del entorno)
+        serverEndpoints.forEach((endpoint, stats) -> {
+            if (!matchedServer.contains(endpoint)) {
+                rows.add(new Row(endpoint, 0, stats.getCount(), Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                        stats.meanMs().orElse(Double.NaN), stats.percentileMs(95).orElse(Double.NaN)));
+            }
+        });
+        return rows;
+    }
+
+    /**
+     * Mismo método y misma plantilla de ruta; si la API está detrás de un gateway con
+     * prefijo (p. ej. /gateway/api/usuarios), la ruta del servidor es un sufijo de la del cliente.
+     */
+    static String matchServerEndpoint(String clientEndpoint, Set<String> serverEndpoints) {
+        if (serverEndpoints.contains(clientEndpoint)) {
+            return clientEndpoint;
+        }
+        String best = null;
+        for (String candidate : serverEndpoints) {
+            int space = candidate.indexOf(' ');
+            String method = candidate.substring(0, space + 1);
+            String path = candidate.substring(space + 1);
+            if (path.startsWith("/") && clientEndpoint.startsWith(method) && clientEndpoint.endsWith(path)
+                    && (best == null || candidate.length() > best.length())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tabla de texto con una fila por endpoint, ordenada por tiempo total de cliente.
+     */
+    public static String format(List<Row> rows) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-45s %8s %8s %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                "Endpoint", "Cliente", "Servidor", "total ms", "conex ms", "red ms", "app ms", "desc ms",
+                "p95 cli", "p95 srv", "% app"));
+        rows.stream()
+                .sorted((a, b) -> Double.compare(weight(b), weight(a)))
+                .forEach(row -> out.append(String.format(Locale.ROOT,
+                        "%-45s %8d %8d %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                        row.getEndpoint(), row.getClientCount(), row.getServerCount(), cell(row.getClientMeanMs()),
+                        cell(row.getConnectMeanMs()), cell(row.networkMs()), cell(row.getServerMeanMs()),
+                        cell(row.transferMs()), cell(row.getClientP95Ms()), cell(row.getServerP95Ms()),
+                        cell(row.applicationShare() * 100))));
+        return out.toString();
+    }
+
+    private static String cell(double value) {
+        return Double.isNaN(value) ? "-" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static double weight(Row row) {
+        double clientTime = row.getClientCount() * row.getClientMeanMs();
+        return Double.isNaN(clientTime) ? -1 : clientTime;
+    }
+
+    /**
+     * Escribe latency-correlation.csv en el directorio indicado.
+     */
+    public static void export(List<Row> rows, Path directory) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path csv = directory.resolve("latency-correlation.csv");
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+                writer.println("method_endpoint,client_count,server_count,client_mean_ms,connect_ms,network_ms,"
+                        + "server_mean_ms,transfer_ms,client_p95_ms,server_p95_ms,server_share");
+                for (Row row : rows) {
+                    writer.println(String.format(Locale.ROOT,
+                            "\"%s\",%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                            row.getEndpoint(), row.getClientCount(), row.getServerCount(), row.getClientMeanMs(),
+                            row.getConnectMeanMs(), row.networkMs(), row.getServerMeanMs(), row.transferMs(),
+                            row.getClientP95Ms(), row.getServerP95Ms(), row.applicationShare()));
+                }
+            }
+            log.info("Correlación de latencias cliente/servidor exportada a {}", csv.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("No se pudo exportar la correlación de latencias a {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Un endpoint: promedios por solicitud en ms (NaN si ese lado no tiene datos).
+     */
+    @Value
+    public static class Row {
+        String endpoint;
+        long clientCount;
+        long serverCount;
+        double clientMeanMs;
+        double clientP95Ms;
+        double connectMeanMs;
+        double firstByteMeanMs;
+        double serverMeanMs;
+        double serverP95Ms;
+
+        /**
+         * Red, gateway y colas antes de la aplicación: primer byte menos conexión y aplicación.
+         */
+        public double networkMs() {
+            return Math.max(0, firstByteMeanMs - connectMeanMs - serverMeanMs);
+        }
+
+        /**
+         * Descarga del body y lectura en el cliente.
+         */
+        public double transferMs() {
+            return Math.max(0, clientMeanMs - firstByteMeanMs);
+        }
+
+        /**
+         * Fracción del tiempo del cliente que pasó dentro de la aplicación.
+         */
+        public double applicationShare() {
+            return serverMeanMs / clientMeanMs;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package co.edu.uniquindio.tests.support;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Filtro de RestAssured que mide cada solicitud (hasta tener el body completo) y la registra
+ * en el {@link LatencyRecorder}, junto con su desglose por fases en {@link RequestMetrics}.
+ * La conexión y el primer byte los anotan el pool y los interceptores del {@link HttpTransport}.
+ */
+public class LatencyFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        RequestPhases phases = RequestPhases.begin();
+        int statusCode = 0;
+        long bytesIn = 0;
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            statusCode = response.statusCode();
+            // El body ya está en memoria (HttpTransport lo lee para liberar la conexión)
+            bytesIn = response.asByteArray().length;
+            return response;
+        } finally {
+            long totalNanos = System.nanoTime() - phases.getStartNanos();
+            String endpoint = LatencyRecorder.endpointKey(requestSpec.getMethod(), requestSpec.getURI());
+            LatencyRecorder.getInstance().record(endpoint, statusCode, totalNanos);
+            RequestMetrics.getInstance().record(endpoint, statusCode, phases.getConnectNanos(),
+                    phases.getFirstByteNanos(), totalNanos, phases.getBytesOut(), bytesIn);
+        }
+    }
+}
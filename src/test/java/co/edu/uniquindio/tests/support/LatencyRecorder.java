@@ -0,0 +1,185 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.SloBudget;
+import lombok.Value;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latencias de las solicitudes HTTP agrupadas por endpoint ("GET /api/usuarios/{id}").
+ * Cada endpoint tiene un histograma (HdrHistogram, en microsegundos) que admite
+ * escrituras concurrentes, así que los percentiles salen sin guardar cada muestra.
+ */
+public class LatencyRecorder {
+
+    private static volatile LatencyRecorder instance;
+
+    // Segmentos de ruta que son identificadores: UUID o numéricos
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    // Latencia de la última solicitud hecha por cada hilo (escenario), en nanosegundos
+    private static final ThreadLocal<Long> lastDurationHolder = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, EndpointStats> endpoints;
+    private volatile long startNanos;
+
+    private LatencyRecorder() {
+        this.endpoints = new ConcurrentHashMap<>();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static LatencyRecorder getInstance() {
+        if (instance == null) {
+            synchronized (LatencyRecorder.class) {
+                if (instance == null) {
+                    instance = new LatencyRecorder();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Registra una solicitud al endpoint (ver {@link #endpointKey}).
+     * statusCode 0 indica que no hubo respuesta (error de red o timeout).
+     */
+    public void record(String endpoint, int statusCode, long durationNanos) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        stats.histogram.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+        if (statusCode == 0 || statusCode >= 500) {
+            stats.errors.increment();
+        }
+        lastDurationHolder.set(durationNanos);
+    }
+
+    /**
+     * Latencia en ms de la última solicitud del hilo actual, o -1 si aún no hizo ninguna.
+     */
+    public double lastDurationMs() {
+        Long nanos = lastDurationHolder.get();
+        return nanos == null ? -1 : nanos / 1e6;
+    }
+
+    public void clearLast() {
+        lastDurationHolder.remove();
+    }
+
+    /**
+     * Percentil (en ms) de las latencias registradas para el endpoint; vacío si no tiene muestras.
+     */
+    public OptionalDouble percentileMs(String endpoint, double percentile) {
+        EndpointStats stats = endpoints.get(endpoint);
+        Histogram histogram = stats != null ? stats.histogram.copy() : null;
+        if (histogram == null || histogram.getTotalCount() == 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(toMillis(histogram.getValueAtPercentile(percentile)));
+    }
+
+    /**
+     * Evalúa los presupuestos contra lo registrado hasta ahora y devuelve una descripción
+     * por cada uno que se supera. Los endpoints sin solicitudes no se evalúan.
+     */
+    public List<String> checkBudgets(List<SloBudget> budgets) {
+        List<String> violations = new ArrayList<>();
+        for (SloBudget budget : budgets) {
+            OptionalDouble actual = percentileMs(budget.getEndpoint(), budget.getPercentile());
+            if (actual.isPresent() && actual.getAsDouble() > budget.getMaxMs()) {
+                violations.add(String.format(Locale.ROOT, "%s (medido: %.1f ms)", budget, actual.getAsDouble()));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Descarta lo registrado hasta ahora (por ejemplo, el calentamiento) y reinicia el reloj
+     * usado para calcular el throughput.
+     */
+    public void reset() {
+        endpoints.clear();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Resumen por endpoint, ordenado de mayor a menor número de solicitudes.
+     */
+    public List<EndpointSummary> summarize() {
+        double elapsedSeconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        List<EndpointSummary> summaries = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            Histogram histogram = stats.histogram.copy();
+            summaries.add(new EndpointSummary(
+                    endpoint,
+                    histogram.getTotalCount(),
+                    stats.errors.sum(),
+                    histogram.getTotalCount() / elapsedSeconds,
+                    toMillis(histogram.getValueAtPercentile(50)),
+                    toMillis(histogram.getValueAtPercentile(95)),
+                    toMillis(histogram.getValueAtPercentile(99)),
+                    toMillis(histogram.getMaxValue())));
+        });
+        summaries.sort(Comparator.comparingLong(EndpointSummary::getCount).reversed());
+        return summaries;
+    }
+
+    /**
+     * Método + ruta sin host ni query, con los identificadores reemplazados por {id}
+     * para que todas las solicitudes a un mismo recurso compartan histograma.
+     */
+    public static String endpointKey(String method, String uri) {
+        String path;
+        try {
+            path = URI.create(uri).getRawPath();
+        } catch (IllegalArgumentException e) {
+            int query = uri.indexOf('?');
+            path = query >= 0 ? uri.substring(0, query) : uri;
+        }
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+
+        StringBuilder template = new StringBuilder(path.length());
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            template.append('/').append(ID_SEGMENT.matcher(segment).matches() ? "{id}" : segment);
+        }
+        return method + " " + (template.length() == 0 ? "/" : template);
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class EndpointStats {
+        // 3 dígitos significativos; el rango crece solo si aparece una latencia mayor
+        private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    @Value
+    public static class EndpointSummary {
+        String endpoint;
+        long count;
+        long errors;
+        double throughputPerSecond;
+        double p50Ms;
+        double p95Ms;
+        double p99Ms;
+        double maxMs;
+    }
+}
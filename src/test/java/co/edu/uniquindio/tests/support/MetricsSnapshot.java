@@ -0,0 +1,295 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Contadores e histogramas de /actuator/prometheus en un instante. Dos instantáneas dan el
+ * trabajo que hizo el servidor entre ellas ({@link #deltaSince}): solicitudes, errores,
+ * tasa y percentiles de latencia según los buckets de http_server_requests_seconds.
+ * <p>
+ * Solo se guardan las series acumulativas (counter, histogram y summary); los gauges no
+ * tienen delta. El body se lee en streaming con {@link PrometheusParser}.
+ */
+public class MetricsSnapshot {
+
+    static final String HTTP_REQUESTS = "http_server_requests_seconds";
+
+    // Variables de ruta de Spring ({userId}, {id}...) como en LatencyRecorder.endpointKey
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{[^}/]+}");
+
+    private final long takenAtNanos;
+    private final Map<String, PrometheusParser.Sample> series;
+
+    private MetricsSnapshot(long takenAtNanos, Map<String, PrometheusParser.Sample> series) {
+        this.takenAtNanos = takenAtNanos;
+        this.series = series;
+    }
+
+    /**
+     * Instantánea de las métricas de la API (GET /actuator/prometheus con el token de admin).
+     */
+    public static MetricsSnapshot scrape() {
+        long takenAt = System.nanoTime();
+        Response response = HttpTransport.getInstance().streamingRequest()
+                .header("Authorization", "Bearer " + TokenClient.getInstance().getAdminToken())
+                .header("Accept", "text/plain;version=0.0.4;charset=utf-8")
+                .when()
+                .get(TestConfig.getInstance().getMetricsEndpoint())
+                .then()
+                .extract().response();
+        try (InputStream body = response.asInputStream()) {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("El endpoint de métricas respondió status " + response.statusCode());
+            }
+            return parse(body, takenAt);
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo el endpoint de métricas: " + e.getMessage(), e);
+        }
+    }
+
+    public static MetricsSnapshot parse(InputStream body) {
+        return parse(body, System.nanoTime());
+    }
+
+    private static MetricsSnapshot parse(InputStream body, long takenAt) {
+        Map<String, PrometheusParser.Sample> series = new HashMap<>();
+        PrometheusParser.parse(body, sample -> {
+            if (isCumulative(sample)) {
+                series.put(seriesKey(sample), sample);
+            }
+        });
+        return new MetricsSnapshot(takenAt, series);
+    }
+
+    private static boolean isCumulative(PrometheusParser.Sample sample) {
+        switch (sample.getType()) {
+            case "counter":
+            case "histogram":
+            case "summary":
+                // Los summary publican además cuantiles (gauges): no son acumulativos
+                return !sample.getLabels().containsKey("quantile");
+            case "untyped":
+                String name = sample.getName();
+                return name.endsWith("_total") || name.endsWith("_count") || name.endsWith("_sum") || name.endsWith("_bucket");
+            default:
+                return false;
+        }
+    }
+
+    private static String seriesKey(PrometheusParser.Sample sample) {
+        return sample.getName() + sample.getLabels();
+    }
+
+    public int size() {
+        return series.size();
+    }
+
+    public boolean contains(String name) {
+        return series.values().stream().anyMatch(sample -> sample.getName().equals(name));
+    }
+
+    /**
+     * Lo acumulado por el servidor desde la instantánea anterior. Si una serie bajó, el
+     * servidor se reinició y se toma su valor actual como delta.
+     */
+    public Delta deltaSince(MetricsSnapshot before) {
+        Map<String, PrometheusParser.Sample> deltas = new HashMap<>();
+        series.forEach((key, after) -> {
+            PrometheusParser.Sample previous = before.series.get(key);
+            double delta = previous == null || previous.getValue() > after.getValue()
+                    ? after.getValue()
+                    : after.getValue() - previous.getValue();
+            if (delta > 0) {
+                deltas.put(key, new PrometheusParser.Sample(after.getName(), after.getLabels(), delta, after.getType()));
+            }
+        });
+        return new Delta(Math.max(1, takenAtNanos - before.takenAtNanos) / 1e9, deltas);
+    }
+
+    /**
+     * Diferencia entre dos instantáneas. Las solicitudes a /actuator (incluido el propio
+     * scrape) no cuentan en las cifras HTTP.
+     */
+    public static class Delta {
+
+        private final double elapsedSeconds;
+        private final Map<String, PrometheusParser.Sample> deltas;
+        private final Map<String, EndpointStats> endpoints;
+        private final EndpointStats total;
+
+        private Delta(double elapsedSeconds, Map<String, PrometheusParser.Sample> deltas) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.deltas = deltas;
+            this.endpoints = new TreeMap<>();
+            for (PrometheusParser.Sample sample : deltas.values()) {
+                if (!sample.getName().startsWith(HTTP_REQUESTS + "_")) {
+                    continue;
+                }
+                String uri = sample.getLabels().getOrDefault("uri", "");
+                if (uri.startsWith("/actuator")) {
+                    continue;
+                }
+                String endpoint = sample.getLabels().getOrDefault("method", "?") + " "
+                        + PATH_VARIABLE.matcher(uri).replaceAll("{id}");
+                endpoints.computeIfAbsent(endpoint, EndpointStats::new).add(sample);
+            }
+            this.total = new EndpointStats("(todos)");
+            endpoints.values().forEach(total::merge);
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedSeconds;
+        }
+
+        /**
+         * Suma de los deltas de todas las series con ese nombre (p. ej. "jvm_gc_pause_seconds_count").
+         */
+        public double counter(String name) {
+            return deltas.values().stream()
+                    .filter(sample -> sample.getName().equals(name))
+                    .mapToDouble(PrometheusParser.Sample::getValue)
+                    .sum();
+        }
+
+        public long requests() {
+            return total.getCount();
+        }
+
+        /**
+         * Solicitudes que el servidor respondió con status 5xx.
+         */
+        public long errors() {
+            return total.getErrors();
+        }
+
+        /**
+         * Solicitudes por segundo entre las dos instantáneas.
+         */
+        public double rate() {
+            return total.getCount() / elapsedSeconds;
+        }
+
+        public OptionalDouble percentileMs(double percentile) {
+            return total.percentileMs(percentile);
+        }
+
+        /**
+         * Estadísticas por endpoint ("MÉTODO /ruta", con las variables de ruta como {id}).
+         */
+        public Map<String, EndpointStats> getEndpoints() {
+            return Collections.unmodifiableMap(endpoints);
+        }
+
+        public EndpointStats getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Solicitudes, errores, tiempo total y buckets acumulados de un endpoint en el intervalo.
+     */
+    public static class EndpointStats {
+
+        private final String endpoint;
+        private long count;
+        private long errors;
+        private double sumSeconds;
+        // Límite superior del bucket (s) → solicitudes con duración menor o igual
+        private final TreeMap<Double, Double> buckets = new TreeMap<>();
+
+        private EndpointStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void add(PrometheusParser.Sample sample) {
+            String suffix = sample.getName().substring(HTTP_REQUESTS.length());
+            switch (suffix) {
+                case "_count":
+                    long requests = Math.round(sample.getValue());
+                    count += requests;
+                    if (sample.getLabels().getOrDefault("status", "").startsWith("5")) {
+                        errors += requests;
+                    }
+                    break;
+                case "_sum":
+                    sumSeconds += sample.getValue();
+                    break;
+                case "_bucket":
+                    String le = sample.getLabels().get("le");
+                    double bound = "+Inf".equals(le) ? Double.POSITIVE_INFINITY : Double.parseDouble(le);
+                    buckets.merge(bound, sample.getValue(), Double::sum);
+                    break;
+                default:
+                    // _max (gauge) y otros sufijos no se acumulan
+            }
+        }
+
+        private void merge(EndpointStats other) {
+            count += other.count;
+            errors += other.errors;
+            sumSeconds += other.sumSeconds;
+            other.buckets.forEach((bound, value) -> buckets.merge(bound, value, Double::sum));
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public OptionalDouble meanMs() {
+            return count == 0 ? OptionalDouble.empty() : OptionalDouble.of(sumSeconds * 1000 / count);
+        }
+
+        /**
+         * Percentil (0-100) interpolando dentro del bucket, como histogram_quantile de
+         * Prometheus. Vacío si no hubo solicitudes o si el servidor no publica buckets
+         * (management.metrics.distribution.percentiles-histogram deshabilitado).
+         */
+        public OptionalDouble percentileMs(double percentile) {
+            List<Map.Entry<Double, Double>> cumulative = new ArrayList<>(buckets.entrySet());
+            if (cumulative.isEmpty()) {
+                return OptionalDouble.empty();
+            }
+            double totalCount = cumulative.get(cumulative.size() - 1).getValue();
+            if (totalCount <= 0) {
+                return OptionalDouble.empty();
+            }
+            double rank = percentile / 100.0 * totalCount;
+            double lowerBound = 0;
+            double lowerCount = 0;
+            for (Map.Entry<Double, Double> bucket : cumulative) {
+                if (bucket.getValue() >= rank) {
+                    if (bucket.getKey().isInfinite()) {
+                        // Por encima del último bucket finito: se informa ese límite
+                        return OptionalDouble.of(lowerBound * 1000);
+                    }
+                    double inBucket = bucket.getValue() - lowerCount;
+                    double fraction = inBucket <= 0 ? 1 : (rank - lowerCount) / inBucket;
+                    return OptionalDouble.of((lowerBound + (bucket.getKey() - lowerBound) * fraction) * 1000);
+                }
+                lowerBound = bucket.getKey();
+                lowerCount = bucket.getValue();
+            }
+            return OptionalDouble.of(lowerBound * 1000);
+        }
+    }
+}
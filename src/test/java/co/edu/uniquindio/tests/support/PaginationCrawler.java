@@ -0,0 +1,245 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.restassured.response.Response;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recorre todas las páginas de GET /api/usuarios?page=&size= en paralelo (como máximo
+ * crawler.concurrency solicitudes en vuelo) y verifica la consistencia de la paginación:
+ * ningún ID repetido entre páginas, ningún ID esperado ausente y totalElements igual a la
+ * cantidad de usuarios distintos vistos.
+ * <p>
+ * Con paginación por offset, una inserción o eliminación concurrente desplaza los usuarios
+ * entre páginas: aparecen duplicados o se saltan usuarios. Por eso las escrituras de usuarios
+ * de la suite (otros escenarios en paralelo, la limpieza, la reposición del pool) se pausan
+ * durante cada recorrido, y cada recorrido compara además totalElements al empezar y al
+ * terminar por si escribe otro cliente del entorno; si cambió, el recorrido no es estable,
+ * sus anomalías se informan en el log y se vuelve a recorrer (hasta crawler.attempts veces).
+ * <p>
+ * Los IDs vistos se guardan en un {@link IdSet} (dos long por UUID) y cada página se lee con
+ * el parser streaming, así que el recorrido de 100k usuarios no arma listas de objetos.
+ */
+@Slf4j
+public class PaginationCrawler {
+
+    private static final int MAX_SAMPLES = 10;
+
+    private final ApiClient apiClient;
+    private final String endpoint;
+    private final String token;
+    private final int pageSize;
+    private final int concurrency;
+
+    public PaginationCrawler(String token, int pageSize) {
+        this(token, pageSize, TestConfig.getInstance().getCrawlerConcurrency());
+    }
+
+    public PaginationCrawler(String token, int pageSize, int concurrency) {
+        this.apiClient = ApiClient.getInstance();
+        this.endpoint = TestConfig.getInstance().getUsersEndpoint();
+        this.token = token;
+        this.pageSize = Math.max(1, pageSize);
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Recorre hasta obtener un recorrido estable, como máximo attempts veces; devuelve el
+     * último recorrido (estable o no).
+     */
+    public CrawlReport crawlUntilStable(int attempts) {
+        CrawlReport report = null;
+        for (int attempt = 1; attempt <= Math.max(1, attempts); attempt++) {
+            report = crawl();
+            if (report.isStable()) {
+                return report;
+            }
+            log.warn("Recorrido de paginación no estable (intento {}/{}): totalElements {} → {}, "
+                            + "{} duplicados, {} vistos. Posibles escrituras concurrentes",
+                    attempt, attempts, report.getTotalElementsAtStart(), report.getTotalElementsAtEnd(),
+                    report.getDuplicates(), report.getDistinct());
+        }
+        return report;
+    }
+
+    /**
+     * Un recorrido con las altas y bajas de usuarios de la suite en pausa ({@link UserWriteGate}):
+     * lo que aún cambie totalElements viene de fuera de la corrida.
+     */
+    public CrawlReport crawl() {
+        return UserWriteGate.getInstance().exclusive(this::crawlPages);
+    }
+
+    private CrawlReport crawlPages() {
+        long start = System.nanoTime();
+        State state = new State();
+
+        // La primera página indica cuántas hay y el tamaño efectivo de página
+        PageSummary first = readPage(0, state);
+        int effectiveSize = first.size > 0 ? first.size : pageSize;
+        int totalPages = first.totalPages >= 0
+                ? first.totalPages
+                : (int) Math.max(1, (first.totalElements + effectiveSize - 1) / effectiveSize);
+        int lastReadPage = 0;
+        boolean lastPageFull = first.items >= effectiveSize && !first.last;
+
+        if (totalPages > 1) {
+            CassetteFilter.ScenarioState cassetteScenario = CassetteFilter.getInstance().currentScenario();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, totalPages - 1), runnable -> {
+                Thread thread = new Thread(runnable, "pagination-crawler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<PageSummary>> pages = new ArrayList<>(totalPages - 1);
+                for (int page = 1; page < totalPages; page++) {
+                    int number = page;
+                    pages.add(executor.submit(() -> {
+                        CassetteFilter.getInstance().attach(cassetteScenario);
+                        try {
+                            return readPage(number, state);
+                        } finally {
+                            CassetteFilter.getInstance().detach();
+                        }
+                    }));
+                }
+                for (Future<PageSummary> page : pages) {
+                    PageSummary summary = page.get();
+                    lastPageFull = summary.items >= effectiveSize && !summary.last;
+                }
+                lastReadPage = totalPages - 1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Recorrido de paginación interrumpido", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // Si durante el recorrido se agregaron usuarios puede haber páginas nuevas al final
+        while (lastPageFull) {
+            PageSummary tail = readPage(++lastReadPage, state);
+            lastPageFull = tail.items >= effectiveSize && !tail.last;
+        }
+
+        long totalAtEnd = readPage(0, 1, null).totalElements;
+        return new CrawlReport(lastReadPage + 1, state.itemsSeen.sum(), state.ids.size(),
+                state.duplicates.sum(), Collections.unmodifiableList(new ArrayList<>(state.duplicateSamples)),
+                first.totalElements, totalAtEnd, state.minTotal.get(), state.maxTotal.get(),
+                (System.nanoTime() - start) / 1_000_000, state.ids);
+    }
+
+    private PageSummary readPage(int page, State state) {
+        return readPage(page, pageSize, state);
+    }
+
+    /**
+     * Lee una página; con state null solo se leen sus metadatos.
+     */
+    private PageSummary readPage(int page, int size, State state) {
+        String url = String.format("%s?page=%d&size=%d", endpoint, page, size);
+        Response response = apiClient.getAuthenticated(url, token);
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("La página " + page + " de usuarios respondió status "
+                    + response.statusCode() + ": " + response.asString());
+        }
+        UserPageReader reader = new UserPageReader(response.asByteArray());
+        if (state != null) {
+            JsonObject item;
+            while ((item = reader.nextItem()) != null) {
+                state.see(item);
+            }
+        }
+        reader.finish();
+        if (state != null && reader.getTotalElements() >= 0) {
+            state.minTotal.accumulateAndGet(reader.getTotalElements(), Math::min);
+            state.maxTotal.accumulateAndGet(reader.getTotalElements(), Math::max);
+        }
+        return new PageSummary(reader.getItems(), reader.getSize(), reader.getTotalElements(),
+                reader.getTotalPages(), reader.isLast());
+    }
+
+    private static class State {
+        private final IdSet ids = new IdSet();
+        private final LongAdder itemsSeen = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final List<String> duplicateSamples = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong minTotal = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxTotal = new AtomicLong(-1);
+
+        private void see(JsonObject item) {
+            itemsSeen.increment();
+            JsonElement id = item.get("id");
+            if (id == null || !id.isJsonPrimitive()) {
+                return;
+            }
+            if (!ids.add(id.getAsString())) {
+                duplicates.increment();
+                if (duplicateSamples.size() < MAX_SAMPLES) {
+                    duplicateSamples.add(id.getAsString());
+                }
+            }
+        }
+    }
+
+    private record PageSummary(int items, int size, long totalElements, int totalPages, boolean last) {
+    }
+
+    /**
+     * Resultado de un recorrido. totalElements vale -1 si la API no lo informa.
+     */
+    @Value
+    public static class CrawlReport {
+        int pages;
+        long itemsSeen;
+        int distinct;
+        long duplicates;
+        List<String> duplicateSamples;
+        long totalElementsAtStart;
+        long totalElementsAtEnd;
+        long minTotalElements;
+        long maxTotalElements;
+        long durationMs;
+        IdSet seenIds;
+
+        /**
+         * totalElements no cambió durante el recorrido (ninguna página informó otro valor):
+         * no hubo escrituras concurrentes que desplacen usuarios entre páginas.
+         */
+        public boolean isStable() {
+            return totalElementsAtStart == totalElementsAtEnd
+                    && minTotalElements == totalElementsAtStart
+                    && maxTotalElements == totalElementsAtStart;
+        }
+
+        /**
+         * IDs esperados que no aparecieron en ninguna página (como máximo los primeros diez).
+         */
+        public List<String> missing(Collection<String> expectedIds) {
+            List<String> missing = new ArrayList<>();
+            for (String id : expectedIds) {
+                if (!seenIds.contains(id) && missing.size() < MAX_SAMPLES) {
+                    missing.add(id);
+                }
+            }
+            return missing;
+        }
+    }
+}
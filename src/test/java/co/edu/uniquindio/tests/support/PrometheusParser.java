@@ -0,0 +1,177 @@
+package co.edu.uniquindio.tests.support;
+
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Parser del formato de texto de Prometheus (text/plain; version=0.0.4), línea por línea:
+ * cada muestra se entrega al consumidor apenas se lee, así que un scrape de varios MB no
+ * se guarda completo en memoria.
+ * <p>
+ * Una línea que no respeta el formato lanza una excepción con su número de línea.
+ */
+public final class PrometheusParser {
+
+    private PrometheusParser() {
+    }
+
+    /**
+     * Lee todas las muestras del stream (no lo cierra). Devuelve la cantidad de muestras.
+     */
+    public static long parse(InputStream input, Consumer<Sample> consumer) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        String type = null;
+        String typedFamily = null;
+        long samples = 0;
+        long lineNumber = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (line.charAt(0) == '#') {
+                    // "# TYPE <familia> <tipo>"; HELP y demás comentarios se ignoran
+                    String[] parts = line.split("\\s+", 4);
+                    if (parts.length >= 4 && parts[1].equals("TYPE")) {
+                        typedFamily = parts[2];
+                        type = parts[3].trim();
+                    }
+                    continue;
+                }
+                Sample sample = parseSample(line, lineNumber);
+                String family = sample.getName();
+                String sampleType = typedFamily != null && belongsTo(family, typedFamily) ? type : "untyped";
+                consumer.accept(sampleType.equals(sample.getType()) ? sample
+                        : new Sample(sample.getName(), sample.getLabels(), sample.getValue(), sampleType));
+                samples++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error leyendo las métricas en la línea " + lineNumber + ": " + e.getMessage(), e);
+        }
+        return samples;
+    }
+
+    private static boolean belongsTo(String name, String family) {
+        if (name.equals(family)) {
+            return true;
+        }
+        if (!name.startsWith(family)) {
+            return false;
+        }
+        String suffix = name.substring(family.length());
+        return suffix.equals("_bucket") || suffix.equals("_count") || suffix.equals("_sum")
+                || suffix.equals("_total") || suffix.equals("_created");
+    }
+
+    private static Sample parseSample(String line, long lineNumber) {
+        int i = 0;
+        int length = line.length();
+        while (i < length && line.charAt(i) != '{' && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        String name = line.substring(0, i);
+        if (name.isEmpty()) {
+            throw invalid(line, lineNumber, "sin nombre de métrica");
+        }
+
+        Map<String, String> labels = Collections.emptyMap();
+        if (i < length && line.charAt(i) == '{') {
+            labels = new TreeMap<>();
+            i++;
+            while (true) {
+                while (i < length && (line.charAt(i) == ',' || line.charAt(i) == ' ')) {
+                    i++;
+                }
+                if (i >= length) {
+                    throw invalid(line, lineNumber, "etiquetas sin cerrar");
+                }
+                if (line.charAt(i) == '}') {
+                    i++;
+                    break;
+                }
+                int equals = line.indexOf('=', i);
+                if (equals < 0 || equals + 1 >= length || line.charAt(equals + 1) != '"') {
+                    throw invalid(line, lineNumber, "etiqueta mal formada");
+                }
+                String labelName = line.substring(i, equals).trim();
+                StringBuilder value = new StringBuilder();
+                i = equals + 2;
+                while (i < length && line.charAt(i) != '"') {
+                    char c = line.charAt(i);
+                    if (c == '\\' && i + 1 < length) {
+                        char escaped = line.charAt(++i);
+                        value.append(escaped == 'n' ? '\n' : escaped);
+                    } else {
+                        value.append(c);
+                    }
+                    i++;
+                }
+                if (i >= length) {
+                    throw invalid(line, lineNumber, "valor de etiqueta sin cerrar");
+                }
+                i++;
+                labels.put(labelName, value.toString());
+            }
+            labels = Collections.unmodifiableMap(labels);
+        }
+
+        // Valor y, opcionalmente, timestamp (que se ignora)
+        while (i < length && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        int valueStart = i;
+        while (i < length && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (valueStart == i) {
+            throw invalid(line, lineNumber, "sin valor");
+        }
+        return new Sample(name, labels, parseValue(line.substring(valueStart, i), line, lineNumber), "untyped");
+    }
+
+    private static double parseValue(String text, String line, long lineNumber) {
+        switch (text) {
+            case "+Inf":
+            case "Inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+                return Double.NEGATIVE_INFINITY;
+            case "NaN":
+                return Double.NaN;
+            default:
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    throw invalid(line, lineNumber, "valor no numérico '" + text + "'");
+                }
+        }
+    }
+
+    private static RuntimeException invalid(String line, long lineNumber, String reason) {
+        String excerpt = line.length() > 120 ? line.substring(0, 120) + "..." : line;
+        return new IllegalArgumentException("Línea " + lineNumber + " no está en formato Prometheus (" + reason + "): " + excerpt);
+    }
+
+    /**
+     * Una muestra; type es el de su familia según la línea # TYPE (counter, gauge,
+     * histogram, summary o untyped).
+     */
+    @Value
+    public static class Sample {
+        String name;
+        Map<String, String> labels;
+        double value;
+        String type;
+    }
+}
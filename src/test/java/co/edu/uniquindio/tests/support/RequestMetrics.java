@@ -0,0 +1,207 @@
+package co.edu.uniquindio.tests.support;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Desglose por fases de cada solicitud HTTP: conexión, primer byte (TTFB), total y bytes
+ * enviados/recibidos, agrupado por método + endpoint, status y tag del escenario.
+ * <p>
+ * Permite ver si un escenario lento lo es por Keycloak, por el gateway o por el servicio
+ * de usuarios. Al terminar la corrida se exporta a target/perf/: un CSV resumen y un
+ * archivo .hgrm (distribución de percentiles de HdrHistogram) por serie.
+ */
+@Slf4j
+public class RequestMetrics {
+
+    private static volatile RequestMetrics instance;
+
+    private static final String NO_TAG = "-";
+
+    private static final ThreadLocal<String> scenarioTagHolder = new ThreadLocal<>();
+
+    private final ConcurrentMap<SeriesKey, PhaseStats> series;
+
+    private RequestMetrics() {
+        this.series = new ConcurrentHashMap<>();
+    }
+
+    public static RequestMetrics getInstance() {
+        if (instance == null) {
+            synchronized (RequestMetrics.class) {
+                if (instance == null) {
+                    instance = new RequestMetrics();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Tag con el que se agrupan las solicitudes del escenario que corre en el hilo actual.
+     */
+    public static void setScenarioTag(String tag) {
+        scenarioTagHolder.set(tag);
+    }
+
+    public static void clearScenarioTag() {
+        scenarioTagHolder.remove();
+    }
+
+    /**
+     * Registra una solicitud terminada. connectNanos es 0 si se reutilizó una conexión del pool
+     * y firstByteNanos es 0 si no llegó respuesta.
+     */
+    void record(String endpoint, int statusCode, long connectNanos, long firstByteNanos,
+                long totalNanos, long bytesOut, long bytesIn) {
+        String tag = scenarioTagHolder.get();
+        SeriesKey key = new SeriesKey(endpoint, statusCode, tag != null ? tag : NO_TAG);
+        PhaseStats stats = series.computeIfAbsent(key, k -> new PhaseStats());
+
+        stats.total.recordValue(toMicros(totalNanos));
+        if (firstByteNanos > 0) {
+            stats.firstByte.recordValue(toMicros(firstByteNanos));
+        }
+        if (connectNanos > 0) {
+            stats.connect.recordValue(toMicros(connectNanos));
+        }
+        stats.bytesOut.add(bytesOut);
+        stats.bytesIn.add(bytesIn);
+    }
+
+    public void reset() {
+        series.clear();
+    }
+
+    /**
+     * Escribe request-phases.csv y un .hgrm por serie en el directorio indicado.
+     */
+    public void export(Path directory) {
+        if (series.isEmpty()) {
+            return;
+        }
+        Map<SeriesKey, PhaseStats> sorted = new TreeMap<>(series);
+        try {
+            Files.createDirectories(directory);
+            Path csv = directory.resolve("request-phases.csv");
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+                writer.println("method_endpoint,status,tag,count,bytes_out,bytes_in,connections,"
+                        + "connect_p50_ms,connect_p95_ms,ttfb_p50_ms,ttfb_p95_ms,ttfb_p99_ms,"
+                        + "total_p50_ms,total_p95_ms,total_p99_ms,total_max_ms");
+                sorted.forEach((key, stats) -> writer.println(csvLine(key, stats)));
+            }
+
+            for (Map.Entry<SeriesKey, PhaseStats> entry : sorted.entrySet()) {
+                Path hgrm = directory.resolve(entry.getKey().fileName() + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm), false, StandardCharsets.UTF_8)) {
+                    // Valores en microsegundos, se escriben en milisegundos
+                    entry.getValue().total.copy().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            log.info("Métricas por fase exportadas a {} ({} series)", directory.toAbsolutePath(), sorted.size());
+        } catch (IOException e) {
+            log.warn("No se pudieron exportar las métricas por fase a {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Fases por endpoint, sumando todos los status y tags. Los promedios (a diferencia de los
+     * percentiles) se pueden restar entre sí para repartir el tiempo total entre las fases.
+     */
+    public Map<String, EndpointPhases> summarizeByEndpoint() {
+        Map<String, PhaseStats> merged = new TreeMap<>();
+        series.forEach((key, stats) -> {
+            PhaseStats target = merged.computeIfAbsent(key.endpoint, endpoint -> new PhaseStats());
+            target.total.add(stats.total.copy());
+            target.firstByte.add(stats.firstByte.copy());
+            target.connect.add(stats.connect.copy());
+        });
+        Map<String, EndpointPhases> summaries = new TreeMap<>();
+        merged.forEach((endpoint, stats) -> {
+            long count = stats.total.getTotalCount();
+            // El tiempo de conexión se reparte entre todas las solicitudes, también las que reutilizaron una
+            double connectMs = count == 0 ? 0 : stats.connect.getMean() * stats.connect.getTotalCount() / count / 1000.0;
+            summaries.put(endpoint, new EndpointPhases(endpoint, count, connectMs,
+                    stats.firstByte.getTotalCount() == 0 ? 0 : stats.firstByte.getMean() / 1000.0,
+                    stats.total.getMean() / 1000.0, millis(stats.total, 50), millis(stats.total, 95)));
+        });
+        return summaries;
+    }
+
+    private static String csvLine(SeriesKey key, PhaseStats stats) {
+        Histogram total = stats.total.copy();
+        Histogram firstByte = stats.firstByte.copy();
+        Histogram connect = stats.connect.copy();
+        return String.format(Locale.ROOT, "\"%s\",%d,\"%s\",%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                key.endpoint, key.statusCode, key.tag, total.getTotalCount(),
+                stats.bytesOut.sum(), stats.bytesIn.sum(), connect.getTotalCount(),
+                millis(connect, 50), millis(connect, 95),
+                millis(firstByte, 50), millis(firstByte, 95), millis(firstByte, 99),
+                millis(total, 50), millis(total, 95), millis(total, 99),
+                total.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private record SeriesKey(String endpoint, int statusCode, String tag) implements Comparable<SeriesKey> {
+
+        @Override
+        public int compareTo(SeriesKey other) {
+            int byEndpoint = endpoint.compareTo(other.endpoint);
+            if (byEndpoint != 0) {
+                return byEndpoint;
+            }
+            int byStatus = Integer.compare(statusCode, other.statusCode);
+            return byStatus != 0 ? byStatus : tag.compareTo(other.tag);
+        }
+
+        String fileName() {
+            String name = endpoint + "_" + statusCode + "_" + tag;
+            return name.replaceAll("[^A-Za-z0-9._-]+", "_").replaceAll("_+", "_");
+        }
+    }
+
+    /**
+     * Promedios por solicitud (ms) de un endpoint: conexión, primer byte y total.
+     */
+    @Value
+    public static class EndpointPhases {
+        String endpoint;
+        long count;
+        double connectMeanMs;
+        double firstByteMeanMs;
+        double totalMeanMs;
+        double totalP50Ms;
+        double totalP95Ms;
+    }
+
+    private static class PhaseStats {
+        private final ConcurrentHistogram connect = new ConcurrentHistogram(3);
+        private final ConcurrentHistogram firstByte = new ConcurrentHistogram(3);
+        private final ConcurrentHistogram total = new ConcurrentHistogram(3);
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+    }
+}
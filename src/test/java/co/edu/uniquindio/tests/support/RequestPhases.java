@@ -0,0 +1,67 @@
+package co.edu.uniquindio.tests.support;
+
+/**
+ * Marcas de tiempo de la solicitud HTTP en curso en el hilo actual.
+ * HttpClient ejecuta la solicitud en el mismo hilo que la pide, así que el operador de
+ * conexiones y los interceptores del {@link HttpTransport} pueden anotar aquí la conexión
+ * y el primer byte, y el {@link LatencyFilter} los lee al terminar.
+ */
+public final class RequestPhases {
+
+    private static final ThreadLocal<RequestPhases> current = ThreadLocal.withInitial(RequestPhases::new);
+
+    private long startNanos;
+    private long connectNanos;
+    private long firstByteNanos;
+    private long bytesOut;
+
+    private RequestPhases() {
+    }
+
+    /**
+     * Reinicia las marcas al comenzar una solicitud.
+     */
+    static RequestPhases begin() {
+        RequestPhases phases = current.get();
+        phases.startNanos = System.nanoTime();
+        phases.connectNanos = 0;
+        phases.firstByteNanos = 0;
+        phases.bytesOut = 0;
+        return phases;
+    }
+
+    /**
+     * Se abrió una conexión nueva (no reutilizada del pool) en connectNanos.
+     */
+    static void connected(long connectNanos) {
+        current.get().connectNanos += connectNanos;
+    }
+
+    static void requestSent(long bytesOut) {
+        current.get().bytesOut = Math.max(0, bytesOut);
+    }
+
+    /**
+     * Llegaron los encabezados de la respuesta.
+     */
+    static void firstByteReceived() {
+        RequestPhases phases = current.get();
+        phases.firstByteNanos = System.nanoTime() - phases.startNanos;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getConnectNanos() {
+        return connectNanos;
+    }
+
+    long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    long getBytesOut() {
+        return bytesOut;
+    }
+}
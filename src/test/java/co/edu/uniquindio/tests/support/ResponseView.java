@@ -0,0 +1,202 @@
+package co.edu.uniquindio.tests.support;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import io.restassured.response.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Vista de solo lectura del body JSON de una respuesta, parseado una única vez.
+ * <p>
+ * Cada {@code response.jsonPath()} de RestAssured vuelve a parsear el body completo y arma
+ * un grafo de objetos Groovy; leer tres campos son tres parseos. Aquí el body se lee con el
+ * parser streaming de Gson la primera vez que se consulta un campo y el árbol resultante
+ * (mucho más liviano que el de Groovy en listas grandes) se reutiliza en las consultas
+ * siguientes.
+ * <p>
+ * Rutas: campos separados por punto e índices entre corchetes, p. ej. "usuario.id",
+ * "content[0].email"; "$" o "" es la raíz. Un campo ausente o null devuelve null.
+ * No es thread-safe: cada hilo usa su propia vista (ver {@link ScenarioContext#getResponseView()}).
+ */
+public class ResponseView {
+
+    private final Response response;
+    private JsonElement root;
+
+    public ResponseView(Response response) {
+        this.response = response;
+    }
+
+    public static ResponseView of(Response response) {
+        return new ResponseView(response);
+    }
+
+    public Response getResponse() {
+        return response;
+    }
+
+    public int statusCode() {
+        return response.statusCode();
+    }
+
+    /**
+     * Raíz del body; JsonNull si el body está vacío o no es JSON.
+     */
+    public JsonElement root() {
+        if (root == null) {
+            root = parse(response.asByteArray());
+        }
+        return root;
+    }
+
+    private static JsonElement parse(byte[] body) {
+        if (body == null || body.length == 0) {
+            return JsonNull.INSTANCE;
+        }
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            return JsonParser.parseReader(reader);
+        } catch (Exception e) {
+            // Bodies de texto (p. ej. Prometheus) o HTML de error: no hay campos que leer
+            return JsonNull.INSTANCE;
+        }
+    }
+
+    public JsonElement get(String path) {
+        return at(root(), path);
+    }
+
+    public boolean has(String path) {
+        return get(path) != null;
+    }
+
+    public String getString(String path) {
+        JsonElement value = get(path);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    /**
+     * Primer valor no nulo entre varias rutas, p. ej. la respuesta de creación que puede venir
+     * anidada ("usuario.id") o plana ("id").
+     */
+    public String firstString(String... paths) {
+        for (String path : paths) {
+            String value = getString(path);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public Integer getInt(String path) {
+        JsonElement value = get(path);
+        return isNumber(value) ? value.getAsInt() : null;
+    }
+
+    public Long getLong(String path) {
+        JsonElement value = get(path);
+        return isNumber(value) ? value.getAsLong() : null;
+    }
+
+    /**
+     * Elementos del arreglo en la ruta (sin copiarlos); null si no hay un arreglo.
+     */
+    public List<JsonElement> getList(String path) {
+        JsonElement value = get(path);
+        if (value == null || !value.isJsonArray()) {
+            return null;
+        }
+        return Collections.unmodifiableList(value.getAsJsonArray().asList());
+    }
+
+    /**
+     * Cantidad de elementos del arreglo en la ruta, o -1 si no hay un arreglo.
+     */
+    public int size(String path) {
+        JsonElement value = get(path);
+        return value != null && value.isJsonArray() ? value.getAsJsonArray().size() : -1;
+    }
+
+    /**
+     * Recorre los objetos del arreglo en la ruta sin construir listas intermedias.
+     */
+    public void forEachObject(String path, Consumer<JsonObject> action) {
+        JsonElement value = get(path);
+        if (value == null || !value.isJsonArray()) {
+            return;
+        }
+        for (JsonElement element : value.getAsJsonArray()) {
+            if (element.isJsonObject()) {
+                action.accept(element.getAsJsonObject());
+            }
+        }
+    }
+
+    /**
+     * Valor en la ruta dentro de un elemento ya parseado (p. ej. un ítem de {@link #getList});
+     * null si no existe o es JSON null.
+     */
+    public static JsonElement at(JsonElement element, String path) {
+        JsonElement current = element;
+        for (String step : steps(path)) {
+            if (current == null || current.isJsonNull()) {
+                return null;
+            }
+            if (step.startsWith("[")) {
+                int index = Integer.parseInt(step.substring(1, step.length() - 1));
+                JsonArray array = current.isJsonArray() ? current.getAsJsonArray() : null;
+                current = array != null && index >= 0 && index < array.size() ? array.get(index) : null;
+            } else {
+                current = current.isJsonObject() ? current.getAsJsonObject().get(step) : null;
+            }
+        }
+        return current == null || current.isJsonNull() ? null : current;
+    }
+
+    private static List<String> steps(String path) {
+        List<String> steps = new ArrayList<>();
+        if (path == null || path.isEmpty() || path.equals("$")) {
+            return steps;
+        }
+        int start = path.startsWith("$.") ? 2 : 0;
+        StringBuilder field = new StringBuilder();
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '.' || c == '[') {
+                if (field.length() > 0) {
+                    steps.add(field.toString());
+                    field.setLength(0);
+                }
+                if (c == '[') {
+                    int close = path.indexOf(']', i);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Ruta JSON inválida: " + path);
+                    }
+                    steps.add(path.substring(i, close + 1));
+                    i = close;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        if (field.length() > 0) {
+            steps.add(field.toString());
+        }
+        return steps;
+    }
+
+    private static boolean isNumber(JsonElement value) {
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber();
+    }
+}
@@ -2,8 +2,12 @@ package co.edu.uniquindio.tests.support;
 
 import io.restassured.response.Response;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -12,13 +16,32 @@ import java.util.HashMap;
  */
 public class ScenarioContext {
     private static final ThreadLocal<Response> responseHolder = new ThreadLocal<>();
+    // Vista del body de la última respuesta: se parsea una sola vez aunque varios steps la lean
+    private static final ThreadLocal<ResponseView> responseViewHolder = new ThreadLocal<>();
+    // Duración (ms) de la solicitud que produjo la última respuesta
+    private static final ThreadLocal<Double> responseTimeHolder = new ThreadLocal<>();
     private static final ThreadLocal<String> accessTokenHolder = new ThreadLocal<>();
     // Almacena datos clave-valor (ej. "currentPassword", "newUserId") para el escenario
     private static final ThreadLocal<Map<String, Object>> contextHolder =
             ThreadLocal.withInitial(HashMap::new);
+    // Usuarios cuyos tokens pidió el escenario; null fuera de un escenario (hilos de trabajo)
+    private static final ThreadLocal<Set<String>> tokenUsersHolder = new ThreadLocal<>();
+    // @CleanTokenCache: el primer token de cada usuario en el escenario se pide sin caché
+    private static final ThreadLocal<Boolean> freshTokensHolder = new ThreadLocal<>();
 
     public static void setResponse(Response response) {
         responseHolder.set(response);
+        responseViewHolder.set(response != null ? new ResponseView(response) : null);
+        responseTimeHolder.set(response != null ? responseTimeMs(response) : null);
+    }
+
+    /**
+     * Las respuestas reproducidas de un cassette no traen tiempo (-1): para esas se usa lo que
+     * midió el LatencyFilter, que en este hilo es justamente la solicitud que las produjo.
+     */
+    private static double responseTimeMs(Response response) {
+        long timeMs = response.getTimeIn(TimeUnit.MILLISECONDS);
+        return timeMs >= 0 ? timeMs : LatencyRecorder.getInstance().lastDurationMs();
     }
 
 
@@ -26,6 +49,22 @@ public class ScenarioContext {
         return responseHolder.get();
     }
 
+    /**
+     * Body JSON de la última respuesta, parseado la primera vez que se consulta.
+     * Preferible a {@code getResponse().jsonPath()}, que vuelve a parsear en cada llamada.
+     */
+    public static ResponseView getResponseView() {
+        return responseViewHolder.get();
+    }
+
+    /**
+     * Duración en ms de la solicitud de la última respuesta guardada, o -1 si no hay respuesta.
+     */
+    public static double getResponseTimeMs() {
+        Double timeMs = responseTimeHolder.get();
+        return timeMs != null ? timeMs : -1;
+    }
+
     public static void store(String key, Object value) {
         contextHolder.get().put(key, value);
     }
@@ -43,6 +82,8 @@ public class ScenarioContext {
 
     public static void clearResponse() {
         responseHolder.remove();
+        responseViewHolder.remove();
+        responseTimeHolder.remove();
     }
 
 
@@ -56,9 +97,36 @@ public class ScenarioContext {
     }
 
 
+    /**
+     * Empieza a registrar los usuarios cuyos tokens pide el escenario del hilo actual, para
+     * invalidar solo esos (y no los de otros hilos) si el escenario falla.
+     */
+    public static void trackTokenUsers(boolean freshTokens) {
+        tokenUsersHolder.set(new LinkedHashSet<>());
+        freshTokensHolder.set(freshTokens);
+    }
+
+    /**
+     * Registra que el escenario usa el token del usuario. Devuelve true si es la primera vez
+     * y el escenario pide tokens sin caché (@CleanTokenCache).
+     */
+    public static boolean recordTokenUser(String username) {
+        Set<String> users = tokenUsersHolder.get();
+        return users != null && users.add(username) && Boolean.TRUE.equals(freshTokensHolder.get());
+    }
+
+    public static Set<String> getTokenUsers() {
+        Set<String> users = tokenUsersHolder.get();
+        return users != null ? Collections.unmodifiableSet(users) : Collections.emptySet();
+    }
+
     public static void clearAll() {
         responseHolder.remove();
+        responseViewHolder.remove();
+        responseTimeHolder.remove();
         contextHolder.remove();
         accessTokenHolder.remove();
+        tokenUsersHolder.remove();
+        freshTokensHolder.remove();
     }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historial local de la duración de cada escenario ("usuarios.feature:42" → ms), usado para
+ * ordenar la ejecución en paralelo de mayor a menor duración.
+ * <p>
+ * Al terminar cada corrida se actualiza desde target/cucumber-reports/cucumber.json: solo con
+ * los escenarios que pasaron (uno fallido puede cortarse antes y parecer más corto) y con un
+ * promedio móvil, para que una corrida lenta aislada no desordene la siguiente. Un escenario
+ * sin historial se estima con la mediana del historial.
+ */
+@Slf4j
+public class ScenarioDurationHistory {
+
+    private static volatile ScenarioDurationHistory instance;
+
+    // Peso de la última corrida en el promedio móvil
+    private static final double SMOOTHING = 0.5;
+
+    private final Path file;
+    private final int defaultEstimateMs;
+    private final Map<String, Double> durationsMs;
+    private volatile double medianMs;
+
+    private ScenarioDurationHistory() {
+        TestConfig config = TestConfig.getInstance();
+        this.file = Path.of(config.getSchedulingHistoryFile());
+        this.defaultEstimateMs = config.getSchedulingDefaultEstimateMs();
+        this.durationsMs = new ConcurrentHashMap<>();
+        load();
+    }
+
+    public static ScenarioDurationHistory getInstance() {
+        if (instance == null) {
+            synchronized (ScenarioDurationHistory.class) {
+                if (instance == null) {
+                    instance = new ScenarioDurationHistory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Clave de un escenario: nombre del archivo .feature y línea (la de la fila de Examples
+     * en los Scenario Outline), como el scope de los cassettes.
+     */
+    public static String scenarioKey(String featureUri, int line) {
+        String path = featureUri.replace('\\', '/');
+        return path.substring(path.lastIndexOf('/') + 1) + ":" + line;
+    }
+
+    public boolean isEmpty() {
+        return durationsMs.isEmpty();
+    }
+
+    /**
+     * Duración esperada en ms: la del historial, la mediana si el escenario es nuevo, o
+     * scheduling.default.estimate.ms si todavía no hay historial.
+     */
+    public double estimateMs(String scenarioKey) {
+        Double known = durationsMs.get(scenarioKey);
+        if (known != null) {
+            return known;
+        }
+        return durationsMs.isEmpty() ? defaultEstimateMs : medianMs;
+    }
+
+    /**
+     * Suma al historial las duraciones del reporte JSON de Cucumber y lo guarda.
+     * Devuelve la cantidad de escenarios registrados.
+     */
+    public synchronized int recordFromCucumberJson(Path report) {
+        JsonElement root;
+        try (Reader reader = Files.newBufferedReader(report, StandardCharsets.UTF_8)) {
+            root = JsonParser.parseReader(reader);
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer el reporte {} para el historial de duraciones: {}", report, e.getMessage());
+            return 0;
+        }
+        if (!root.isJsonArray()) {
+            return 0;
+        }
+
+        int recorded = 0;
+        for (JsonElement feature : root.getAsJsonArray()) {
+            JsonObject featureObject = feature.getAsJsonObject();
+            if (!featureObject.has("uri") || !featureObject.has("elements")) {
+                continue;
+            }
+            String uri = featureObject.get("uri").getAsString();
+            // El JSON escribe el Background como un elemento aparte, antes de cada escenario
+            double backgroundNanos = 0;
+            boolean backgroundPassed = true;
+            for (JsonElement element : featureObject.getAsJsonArray("elements")) {
+                JsonObject scenario = element.getAsJsonObject();
+                Totals totals = new Totals();
+                totals.add(scenario);
+                if ("background".equals(stringOrNull(scenario, "type"))) {
+                    backgroundNanos = totals.nanos;
+                    backgroundPassed = totals.passed;
+                    continue;
+                }
+                if (totals.passed && backgroundPassed && scenario.has("line")) {
+                    update(scenarioKey(uri, scenario.get("line").getAsInt()), (backgroundNanos + totals.nanos) / 1e6);
+                    recorded++;
+                }
+                backgroundNanos = 0;
+                backgroundPassed = true;
+            }
+        }
+        if (recorded > 0) {
+            save();
+        }
+        return recorded;
+    }
+
+    private void update(String key, double latestMs) {
+        durationsMs.merge(key, latestMs, (previous, latest) -> previous * (1 - SMOOTHING) + latest * SMOOTHING);
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int equals = line.lastIndexOf('=');
+                if (line.isBlank() || line.startsWith("#") || equals < 0) {
+                    continue;
+                }
+                try {
+                    durationsMs.put(line.substring(0, equals).trim(), Double.parseDouble(line.substring(equals + 1).trim()));
+                } catch (NumberFormatException e) {
+                    log.debug("Línea ignorada en {}: {}", file, line);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo leer el historial de duraciones {}: {}", file, e.getMessage());
+        }
+        updateMedian();
+    }
+
+    /**
+     * Una línea "clave=ms" por escenario, ordenadas por clave.
+     */
+    private void save() {
+        updateMedian();
+        List<String> keys = new ArrayList<>(durationsMs.keySet());
+        Collections.sort(keys);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("# Duración promedio (ms) por escenario; la actualiza cada corrida de la suite\n");
+                for (String key : keys) {
+                    writer.write(String.format(Locale.ROOT, "%s=%.1f%n", key, durationsMs.get(key)));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo guardar el historial de duraciones {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void updateMedian() {
+        List<Double> values = new ArrayList<>(durationsMs.values());
+        if (values.isEmpty()) {
+            medianMs = defaultEstimateMs;
+            return;
+        }
+        Collections.sort(values);
+        int middle = values.size() / 2;
+        medianMs = values.size() % 2 == 1 ? values.get(middle) : (values.get(middle - 1) + values.get(middle)) / 2;
+    }
+
+    private static String stringOrNull(JsonObject object, String member) {
+        JsonElement value = object.get(member);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    /**
+     * Suma la duración de hooks y steps de un elemento del JSON (campos "result" anidados).
+     */
+    private static final class Totals {
+        private double nanos;
+        private boolean passed = true;
+
+        private void add(JsonElement element) {
+            if (element.isJsonArray()) {
+                for (JsonElement child : element.getAsJsonArray()) {
+                    add(child);
+                }
+            } else if (element.isJsonObject()) {
+                JsonObject object = element.getAsJsonObject();
+                JsonElement result = object.get("result");
+                if (result != null && result.isJsonObject()) {
+                    JsonObject resultObject = result.getAsJsonObject();
+                    if (resultObject.has("duration")) {
+                        nanos += resultObject.get("duration").getAsDouble();
+                    }
+                    String status = stringOrNull(resultObject, "status");
+                    if (status != null && !status.equals("passed")) {
+                        passed = false;
+                    }
+                }
+                for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+                    if (member.getValue().isJsonArray()) {
+                        add(member.getValue());
+                    }
+                }
+            }
+        }
+    }
+}
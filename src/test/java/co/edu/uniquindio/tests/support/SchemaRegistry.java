@@ -0,0 +1,141 @@
+package co.edu.uniquindio.tests.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.core.report.ProcessingMessage;
+import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON Schemas de src/test/resources/schemas, compilados una sola vez por corrida.
+ * <p>
+ * Compilar un schema (cargarlo, resolver sus $ref y armar los validadores) es lo caro; un
+ * {@link JsonSchema} ya compilado es inmutable y thread-safe, así que los steps y los
+ * usuarios virtuales del modo carga comparten las mismas instancias. La validación recibe
+ * el árbol ya parseado por {@link ResponseView}, sin volver a parsear el body.
+ */
+@Slf4j
+public class SchemaRegistry {
+
+    private static volatile SchemaRegistry instance;
+
+    // Máximo de errores que se informan por validación (una página inválida puede tener miles)
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    public enum Schema {
+        USER("user-schema.json"),
+        PROFILE("profile-schema.json"),
+        PAGE("page-schema.json"),
+        ERROR("error-schema.json");
+
+        private final String file;
+
+        Schema(String file) {
+            this.file = file;
+        }
+    }
+
+    private final Map<Schema, JsonSchema> compiled = new EnumMap<>(Schema.class);
+
+    private SchemaRegistry() {
+        long start = System.nanoTime();
+        JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+        for (Schema schema : Schema.values()) {
+            try {
+                // Con la URI "resource:" los $ref relativos (p. ej. page → user) se resuelven en el classpath
+                compiled.put(schema, factory.getJsonSchema("resource:/schemas/" + schema.file));
+            } catch (ProcessingException e) {
+                throw new RuntimeException("No se pudo compilar el schema " + schema.file + ": " + e.getMessage(), e);
+            }
+        }
+        log.debug("Schemas compilados: {} en {} ms", compiled.keySet(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public static SchemaRegistry getInstance() {
+        if (instance == null) {
+            synchronized (SchemaRegistry.class) {
+                if (instance == null) {
+                    instance = new SchemaRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Errores de validación del valor contra el schema; lista vacía si es válido.
+     * Un valor ausente (null) no cumple ningún schema.
+     */
+    public List<String> validate(Schema schema, JsonElement value) {
+        if (value == null) {
+            return List.of("se esperaba un valor para el schema " + schema.file + " y no hay ninguno");
+        }
+        JsonSchema validator = compiled.get(schema);
+        JsonNode node = toJsonNode(value);
+        try {
+            // Camino rápido: sin armar el reporte cuando el valor es válido (el caso normal)
+            if (validator.validInstance(node)) {
+                return Collections.emptyList();
+            }
+            ProcessingReport report = validator.validate(node);
+            List<String> errors = new ArrayList<>();
+            for (ProcessingMessage message : report) {
+                if (errors.size() == MAX_REPORTED_ERRORS) {
+                    errors.add("...");
+                    break;
+                }
+                JsonNode pointer = message.asJson().path("instance").path("pointer");
+                errors.add((pointer.asText().isEmpty() ? "/" : pointer.asText()) + ": " + message.getMessage());
+            }
+            return errors;
+        } catch (ProcessingException e) {
+            return List.of("error validando con " + schema.file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copia el árbol de Gson a nodos de Jackson (el modelo que usa el validador),
+     * sin serializar ni volver a parsear el texto.
+     */
+    private static JsonNode toJsonNode(JsonElement element) {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        if (element == null || element.isJsonNull()) {
+            return nodes.nullNode();
+        }
+        if (element.isJsonObject()) {
+            ObjectNode object = nodes.objectNode();
+            element.getAsJsonObject().entrySet()
+                    .forEach(entry -> object.set(entry.getKey(), toJsonNode(entry.getValue())));
+            return object;
+        }
+        if (element.isJsonArray()) {
+            ArrayNode array = nodes.arrayNode(element.getAsJsonArray().size());
+            element.getAsJsonArray().forEach(item -> array.add(toJsonNode(item)));
+            return array;
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return nodes.booleanNode(primitive.getAsBoolean());
+        }
+        if (primitive.isNumber()) {
+            // Gson guarda el número como texto (LazilyParsedNumber): entero si no tiene parte decimal
+            String number = primitive.getAsString();
+            boolean integral = number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0;
+            return integral ? nodes.numberNode(primitive.getAsBigInteger()) : nodes.numberNode(primitive.getAsBigDecimal());
+        }
+        return nodes.textNode(primitive.getAsString());
+    }
+}
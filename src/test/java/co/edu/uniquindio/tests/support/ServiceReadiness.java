@@ -0,0 +1,124 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import io.restassured.response.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifica que la API esté disponible (/actuator/health con status UP).
+ * <p>
+ * Al iniciar la corrida {@link #awaitReady()} consulta el health con backoff exponencial
+ * hasta que responde UP o se agota readiness.timeout.seconds. Después, los steps
+ * "el servicio ... está disponible" usan {@link #isReady()}, que responde con el último
+ * resultado mientras tenga menos de readiness.ttl.ms y solo entonces vuelve a consultar.
+ * Estas consultas no pasan por las métricas de latencia ni cuentan como solicitudes de
+ * los escenarios.
+ */
+@Slf4j
+public class ServiceReadiness {
+
+    private static volatile ServiceReadiness instance;
+
+    private static final long INITIAL_BACKOFF_MS = 100;
+    private static final long MAX_BACKOFF_MS = 2000;
+
+    private final TestConfig config;
+    private final HttpTransport transport;
+
+    private volatile boolean ready;
+    private volatile long readyUntilNanos;
+
+    private ServiceReadiness() {
+        this.config = TestConfig.getInstance();
+        this.transport = HttpTransport.getInstance();
+    }
+
+    public static ServiceReadiness getInstance() {
+        if (instance == null) {
+            synchronized (ServiceReadiness.class) {
+                if (instance == null) {
+                    instance = new ServiceReadiness();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Espera a que el servicio responda UP. Lanza una excepción si no lo hace
+     * dentro de readiness.timeout.seconds.
+     */
+    public void awaitReady() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.getReadinessTimeoutSeconds());
+        long backoff = INITIAL_BACKOFF_MS;
+        for (int attempt = 1; ; attempt++) {
+            String problem = probe();
+            if (problem == null) {
+                log.info("Servicio disponible tras {} intento(s) en {} ms",
+                        attempt, (System.nanoTime() - start) / 1_000_000);
+                return;
+            }
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoff) - deadline > 0) {
+                throw new RuntimeException("El servicio no estuvo disponible en "
+                        + config.getReadinessTimeoutSeconds() + " s (" + config.getHealthEndpoint() + ": " + problem + ")");
+            }
+            log.info("Servicio aún no disponible ({}), reintento en {} ms", problem, backoff);
+            try {
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Espera del servicio interrumpida", e);
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    /**
+     * Último resultado del health si tiene menos de readiness.ttl.ms; si no, lo consulta de nuevo.
+     * Los escenarios en paralelo comparten una sola consulta.
+     */
+    public boolean isReady() {
+        if (isFresh()) {
+            return true;
+        }
+        synchronized (this) {
+            if (isFresh()) {
+                return true;
+            }
+            String problem = probe();
+            if (problem != null) {
+                log.warn("Servicio no disponible: {}", problem);
+            }
+            return problem == null;
+        }
+    }
+
+    private boolean isFresh() {
+        return ready && System.nanoTime() - readyUntilNanos < 0;
+    }
+
+    /**
+     * null si el servicio respondió UP; si no, la descripción del problema.
+     */
+    private String probe() {
+        try {
+            Response response = transport.unmeasuredRequest()
+                    .accept("application/json")
+                    .get(config.getHealthEndpoint());
+            if (response.statusCode() == 200 && "UP".equals(ResponseView.of(response).getString("status"))) {
+                readyUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getReadinessTtlMs());
+                ready = true;
+                return null;
+            }
+            ready = false;
+            return "status " + response.statusCode();
+        } catch (Throwable e) {
+            ready = false;
+            return "error de red: " + e.getMessage();
+        }
+    }
+}
@@ -1,33 +1,53 @@
 package co.edu.uniquindio.tests.support;
 
 import co.edu.uniquindio.tests.config.TestConfig;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import io.restassured.response.Response;
+import lombok.Value;
 
 import java.time.Instant;
-import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Getter
 public class TokenClient {
 
-    private static TokenClient instance;
+    private static volatile TokenClient instance;
 
     private final TestConfig config;
     private final AuthClient authClient;
     private final ConcurrentMap<String, TokenInfo> tokenCache;
-    private final Gson gson; // 👈 AÑADIDO
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentMap<String, CompletableFuture<TokenInfo>> inFlight;
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentMap<String, ScheduledFuture<?>> refreshTasks;
+    @Getter(AccessLevel.NONE)
+    private final ScheduledExecutorService refreshScheduler;
+    @Getter(AccessLevel.NONE)
+    private final Counters counters;
 
     private TokenClient() {
         this.config = TestConfig.getInstance();
         this.authClient = AuthClient.getInstance();
         this.tokenCache = new ConcurrentHashMap<>();
-        this.gson = new Gson(); // 👈 AÑADIDO
+        this.inFlight = new ConcurrentHashMap<>();
+        this.refreshTasks = new ConcurrentHashMap<>();
+        this.refreshScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.counters = new Counters();
     }
 
     public static TokenClient getInstance() {
@@ -61,6 +81,19 @@ public class TokenClient {
         return tokenInfo.getUserId();
     }
 
+    /**
+     * Obtiene el UserID (claim 'sub') de cualquier usuario, iniciando sesión si no está en caché.
+     */
+    public String getUserId(String username, String password) {
+        getToken(username, password);
+        TokenInfo tokenInfo = tokenCache.get(username);
+
+        if (tokenInfo == null || tokenInfo.getUserId() == null) {
+            throw new RuntimeException("Error al extraer UserID del token de " + username);
+        }
+        return tokenInfo.getUserId();
+    }
+
     // Metodo para obtener el token de cualquier usuario
     public String getTokenForUser(String username, String password) {
         return getToken(username, password);
@@ -72,37 +105,21 @@ public class TokenClient {
      */
     public String getToken(String username, String password) {
         String cacheKey = username;
+        if (ScenarioContext.recordTokenUser(username)) {
+            invalidateToken(username);
+        }
         TokenInfo tokenInfo = tokenCache.get(cacheKey);
 
         if (tokenInfo != null && !tokenInfo.isExpired()) {
             log.debug("Reutilizando token en caché para usuario {}", username);
-            return tokenInfo.getAccessToken();
+            return cacheHit(tokenInfo);
         }
 
+        counters.misses.increment();
         log.debug("Solicitando nuevo token para usuario {}", username);
-        String newToken;
-        int expiresIn = 240; // fallback (4 min)
-
         try {
-            // Llama al método por defecto de AuthClient (que usa realm 'taller' y client 'taller-api')
-            Response response = authClient.requestTokenResponse(username, password);
-            if (response.statusCode() == 200) {
-                newToken = response.jsonPath().getString("access_token");
-                Integer exp = response.jsonPath().getInt("expires_in");
-
-                if (exp != null && exp > 0) {
-                    expiresIn = exp;
-                }
-
-                // ⬇️ --- MODIFICADO --- ⬇️
-                String userId = parseUserIdFromToken(newToken);
-                tokenCache.put(cacheKey, new TokenInfo(newToken, expiresIn, userId));
-                log.debug("Nuevo token guardado en caché para {} (UserID: {}, expira en {}s)", username, userId, expiresIn);
-                return newToken;
-            } else {
-                log.warn("No se obtuvo token (status {}). Body: {}", response.statusCode(), response.getBody().asString());
-                return null;
-            }
+            TokenInfo newToken = fetchSingleFlight(cacheKey, username, password);
+            return newToken != null ? newToken.getAccessToken() : null;
         } catch (Exception e) {
             log.error("Error al solicitar token para {}: {}", username, e.getMessage());
             throw new RuntimeException("Error al comunicarse con Keycloak: " + e.getMessage(), e);
@@ -111,59 +128,192 @@ public class TokenClient {
 
     /**
      * Obtiene el token del usuario administrador configurado en TestConfig.
-     * --- MÉTODO CORREGIDO ---
      * Llama al realm 'taller' usando el client_id 'taller-api', que SÍ tiene los scopes.
      */
     public String getAdminToken() {
         // Usamos el username del admin como clave de caché
         String cacheKey = config.getAdminUsername();
+        // El admin también es un usuario del escenario: se invalida si falla o con @CleanTokenCache
+        if (ScenarioContext.recordTokenUser(cacheKey)) {
+            invalidateToken(cacheKey);
+        }
         TokenInfo tokenInfo = tokenCache.get(cacheKey);
 
         if (tokenInfo != null && !tokenInfo.isExpired()) {
             log.debug("Reutilizando token de admin en caché");
-            return tokenInfo.getAccessToken();
+            return cacheHit(tokenInfo);
         }
 
+        counters.misses.increment();
         log.debug("Solicitando nuevo token de admin al realm '{}' usando el cliente '{}'",
                 config.getKeycloakRealm(), config.getKeycloakClientId());
-        String newToken;
-        int expiresIn = 240; // fallback
 
+        TokenInfo newToken;
         try {
-            // =================================================================
-            // ⬇️⬇️⬇️ CORRECCIÓN APLICADA ⬇️⬇️⬇️
-            // =================================================================
-            Response response = authClient.requestTokenResponse(
-                    config.getAdminUsername(),
-                    config.getAdminPassword()
-            );
-// =================================================================
-            // ⬆️⬆️⬆️ FIN DE LA CORRECCIÓN ⬆️⬆️⬆️
-            // =================================================================
-
-            if (response.statusCode() == 200) {
-                newToken = response.jsonPath().getString("access_token");
-                Integer exp = response.jsonPath().getInt("expires_in");
-
-                if (exp != null && exp > 0) {
-                    expiresIn = exp;
-                }
-
-                // ⬇️ --- MODIFICADO --- ⬇️
-                String userId = parseUserIdFromToken(newToken);
-                tokenCache.put(cacheKey, new TokenInfo(newToken, expiresIn, userId));
-                log.debug("Nuevo token de ADMIN guardado en caché (UserID: {}, expira en {}s)", userId, expiresIn);
-                return newToken;
-            } else {
-                log.error("¡FALLO CRÍTICO! No se pudo obtener el token de administrador.");
-                log.error("El realm '{}' de Keycloak respondió con status {}. Body: {}",
-                        config.getKeycloakRealm(), response.statusCode(), response.getBody().asString());
-                throw new RuntimeException("No se pudo obtener el token de administrador. Revisa la configuración.");
-            }
+            newToken = fetchSingleFlight(cacheKey, config.getAdminUsername(), config.getAdminPassword());
         } catch (Exception e) {
             log.error("Error al solicitar token de admin: {}", e.getMessage());
             throw new RuntimeException("Error al comunicarse con Keycloak (admin): " + e.getMessage(), e);
         }
+
+        if (newToken == null) {
+            log.error("¡FALLO CRÍTICO! No se pudo obtener el token de administrador del realm '{}'.",
+                    config.getKeycloakRealm());
+            throw new RuntimeException("No se pudo obtener el token de administrador. Revisa la configuración.");
+        }
+        return newToken.getAccessToken();
+    }
+
+    /**
+     * Ejecuta el password grant garantizando una sola solicitud en vuelo por usuario.
+     * Si varios hilos encuentran la caché vacía o expirada al mismo tiempo, solo el
+     * primero llama a Keycloak; el resto espera su resultado (token, null o excepción).
+     */
+    private TokenInfo fetchSingleFlight(String cacheKey, String username, String password) {
+        // La clave incluye la contraseña para no compartir un login hecho con otras credenciales
+        String flightKey = cacheKey + '\u0000' + password;
+        CompletableFuture<TokenInfo> call = new CompletableFuture<>();
+        CompletableFuture<TokenInfo> inProgress = inFlight.putIfAbsent(flightKey, call);
+
+        if (inProgress != null) {
+            log.debug("Esperando la solicitud de token en curso para {}", username);
+            return awaitInFlight(inProgress);
+        }
+
+        try {
+            // Otro hilo pudo completar el login entre nuestra lectura de la caché y el registro
+            TokenInfo cached = tokenCache.get(cacheKey);
+            TokenInfo result = (cached != null && !cached.isExpired())
+                    ? cached
+                    : requestNewToken(cacheKey, username, password);
+            call.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Throwable: RestAssured lanza IOException (p. ej. ConnectException) sin declararla
+            // y los hilos en espera deben recibirla igual, o quedarían bloqueados para siempre
+            counters.failures.increment();
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, call);
+        }
+    }
+
+    private TokenInfo awaitInFlight(CompletableFuture<TokenInfo> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Llama al endpoint de token de Keycloak y guarda el resultado en caché.
+     * Devuelve null si Keycloak no responde 200.
+     */
+    private TokenInfo requestNewToken(String cacheKey, String username, String password) {
+        // Llama al método por defecto de AuthClient (que usa realm 'taller' y client 'taller-api')
+        Response response = authClient.requestTokenResponse(username, password);
+        if (response.statusCode() != 200) {
+            counters.failures.increment();
+            log.warn("No se obtuvo token para {} (status {}). Body: {}",
+                    username, response.statusCode(), response.getBody().asString());
+            return null;
+        }
+
+        TokenInfo tokenInfo = toTokenInfo(response, null);
+        tokenCache.put(cacheKey, tokenInfo);
+        scheduleRefresh(cacheKey, tokenInfo);
+        log.debug("Nuevo token guardado en caché para {} (UserID: {}, expira en {})",
+                username, tokenInfo.getUserId(), tokenInfo.getExpirationTime());
+        return tokenInfo;
+    }
+
+    private TokenInfo toTokenInfo(Response response, String knownUserId) {
+        ResponseView json = ResponseView.of(response);
+        String accessToken = json.getString("access_token");
+        int expiresIn = positiveOrDefault(json.getInt("expires_in"), 240); // fallback (4 min)
+        String refreshToken = json.getString("refresh_token");
+        int refreshExpiresIn = positiveOrDefault(json.getInt("refresh_expires_in"), 0); // 0 = sin límite conocido
+
+        String userId = knownUserId != null ? knownUserId : parseUserIdFromToken(accessToken);
+        return new TokenInfo(accessToken, expiresIn, refreshToken, refreshExpiresIn, userId);
+    }
+
+    private static int positiveOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+
+    private String cacheHit(TokenInfo tokenInfo) {
+        counters.hits.increment();
+        tokenInfo.markUsed();
+        return tokenInfo.getAccessToken();
+    }
+
+    /**
+     * Programa la renovación en segundo plano del token un poco antes de que expire en caché,
+     * para que ningún hilo de los steps tenga que esperar un login contra Keycloak.
+     */
+    private void scheduleRefresh(String cacheKey, TokenInfo tokenInfo) {
+        if (!config.isTokenRefreshEnabled() || !tokenInfo.canRefresh()) {
+            return;
+        }
+        long delay = Math.max(tokenInfo.secondsUntilExpiration() - config.getTokenRefreshAheadSeconds(), 1);
+        ScheduledFuture<?> task = refreshScheduler.schedule(
+                () -> refreshInBackground(cacheKey, tokenInfo), delay, TimeUnit.SECONDS);
+        ScheduledFuture<?> previous = refreshTasks.put(cacheKey, task);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void refreshInBackground(String cacheKey, TokenInfo current) {
+        // Entrada invalidada o reemplazada por otro login: no hay nada que renovar
+        if (tokenCache.get(cacheKey) != current) {
+            return;
+        }
+        // Solo se renuevan los tokens que se siguen usando; el resto simplemente expira
+        if (!current.isUsed()) {
+            log.debug("Token de {} sin uso desde su emisión, no se renueva", cacheKey);
+            return;
+        }
+        if (!current.canRefresh()) {
+            return;
+        }
+
+        try {
+            Response response = authClient.refreshTokenResponse(current.getRefreshToken());
+            if (response.statusCode() != 200) {
+                counters.failures.increment();
+                log.warn("No se pudo renovar el token de {} (status {})", cacheKey, response.statusCode());
+                return;
+            }
+
+            TokenInfo renewed = toTokenInfo(response, current.getUserId());
+            if (tokenCache.replace(cacheKey, current, renewed)) {
+                counters.refreshes.increment();
+                scheduleRefresh(cacheKey, renewed);
+                log.debug("Token de {} renovado en segundo plano (expira en {})", cacheKey, renewed.getExpirationTime());
+            }
+        } catch (Exception e) {
+            counters.failures.increment();
+            log.warn("Error renovando el token de {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Contadores de la caché: aciertos, fallos de caché, renovaciones en segundo plano
+     * y errores (logins o renovaciones que no obtuvieron token).
+     */
+    public TokenCacheStats getStats() {
+        return new TokenCacheStats(
+                counters.hits.sum(),
+                counters.misses.sum(),
+                counters.refreshes.sum(),
+                counters.failures.sum());
     }
 
     /**
@@ -172,6 +322,7 @@ public class TokenClient {
     public void invalidateToken(String username) {
         String cacheKey = username;
         tokenCache.remove(cacheKey);
+        cancelRefresh(refreshTasks.remove(cacheKey));
         log.debug("Token invalidado para usuario {}", username);
     }
 
@@ -180,27 +331,24 @@ public class TokenClient {
      */
     public void clearCache() {
         tokenCache.clear();
+        refreshTasks.keySet().forEach(key -> cancelRefresh(refreshTasks.remove(key)));
         log.debug("Caché de tokens limpiada");
     }
 
-    // ⬇️ --- NUEVO MÉTODO --- ⬇️
+    private void cancelRefresh(ScheduledFuture<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
     /**
-     * Decodifica el payload de un JWT para extraer el "sub" (Subject),
-     * que es el UserID.
+     * Extrae el "sub" (Subject), que es el UserID, de los claims del JWT.
+     * Los claims se decodifican una sola vez por token (ver {@link JwtVerifier}).
      */
-    private String parseUserIdFromToken(String jwt) {
+    String parseUserIdFromToken(String jwt) {
         if (jwt == null || jwt.isEmpty()) return null;
         try {
-            String[] parts = jwt.split("\\.");
-            if (parts.length < 2) return null;
-
-            String payload = new String(Base64.getUrlDecoder().decode(parts[1]));
-            JsonObject jsonPayload = gson.fromJson(payload, JsonObject.class);
-
-            if (jsonPayload.has("sub")) {
-                return jsonPayload.get("sub").getAsString();
-            }
-            return null;
+            return JwtVerifier.getInstance().decode(jwt).getSubject();
         } catch (Exception e) {
             log.error("Error al decodificar JWT para extraer 'sub': {}", e.getMessage());
             return null;
@@ -208,19 +356,59 @@ public class TokenClient {
     }
 
 
+    @Value
+    public static class TokenCacheStats {
+        long hits;
+        long misses;
+        long refreshes;
+        long failures;
+    }
+
+    private static class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder refreshes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+    }
+
     @Getter
     private static class TokenInfo {
         private final String accessToken;
         private final Instant expirationTime;
+        private final String refreshToken;
+        private final Instant refreshExpirationTime; // null si Keycloak no informa límite
         private final String userId; // 👈 AÑADIDO
+        private volatile boolean used;
         private static final int EXPIRATION_BUFFER_SECONDS = 30;
 
-        // ⬇️ --- MODIFICADO --- ⬇️
-        public TokenInfo(String accessToken, int expiresInSeconds, String userId) {
+        public TokenInfo(String accessToken, int expiresInSeconds, String refreshToken,
+                         int refreshExpiresInSeconds, String userId) {
             this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
             this.userId = userId; // 👈 AÑADIDO
+            Instant now = Instant.now();
             long effectiveExpiresIn = Math.max(expiresInSeconds - EXPIRATION_BUFFER_SECONDS, 1);
-            this.expirationTime = Instant.now().plusSeconds(effectiveExpiresIn);
+            this.expirationTime = now.plusSeconds(effectiveExpiresIn);
+            this.refreshExpirationTime = refreshExpiresInSeconds > 0
+                    ? now.plusSeconds(refreshExpiresInSeconds)
+                    : null;
+        }
+
+        public void markUsed() {
+            // Leer antes de escribir: en el camino rápido (caché) todos los hilos comparten
+            // esta entrada y una escritura en cada hit invalida la línea de caché entre núcleos
+            if (!used) {
+                this.used = true;
+            }
+        }
+
+        public boolean canRefresh() {
+            return refreshToken != null
+                    && (refreshExpirationTime == null || Instant.now().isBefore(refreshExpirationTime));
+        }
+
+        public long secondsUntilExpiration() {
+            return Math.max(expirationTime.getEpochSecond() - Instant.now().getEpochSecond(), 0);
         }
 
         public boolean isExpired() {
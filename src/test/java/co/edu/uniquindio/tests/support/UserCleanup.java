@@ -0,0 +1,229 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import io.restassured.response.Response;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Elimina los usuarios creados durante la corrida para que la tabla de usuarios del
+ * entorno compartido no crezca de una corrida a otra.
+ * <p>
+ * Cada usuario creado (un 201 de POST /api/usuarios, ver {@link ApiClient}) queda en el
+ * ámbito del escenario que lo creó. Al terminar el escenario sus usuarios se eliminan en
+ * segundo plano, con cleanup.concurrency DELETE en vuelo, sin demorar el siguiente escenario.
+ * Los usuarios que deben sobrevivir al escenario (los del {@link UserPool}) se eliminan al
+ * final de la corrida. {@link #drainAll()} espera como máximo cleanup.timeout.seconds e
+ * informa los IDs que no se pudieron eliminar.
+ */
+@Slf4j
+public class UserCleanup {
+
+    private static volatile UserCleanup instance;
+
+    private static final String CLEANUP_TAG = "@Limpieza";
+
+    private final TestConfig config;
+    private final ApiClient apiClient;
+    private final TokenClient tokenClient;
+
+    // Ámbito del escenario que corre en cada hilo; sin escenario, los IDs van a la corrida
+    private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+    private final Scope suiteScope = new Scope();
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> failed = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<Void>> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    private final LongAdder tracked = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+
+    private UserCleanup() {
+        this.config = TestConfig.getInstance();
+        this.apiClient = ApiClient.getInstance();
+        this.tokenClient = TokenClient.getInstance();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, config.getCleanupConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "user-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static UserCleanup getInstance() {
+        if (instance == null) {
+            synchronized (UserCleanup.class) {
+                if (instance == null) {
+                    instance = new UserCleanup();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Registra un usuario creado en el ámbito actual (escenario o corrida).
+     */
+    public void track(String userId) {
+        if (userId == null || !config.isCleanupEnabled()) {
+            return;
+        }
+        tracked.increment();
+        Scope scope = currentScope.get();
+        if (scope == null) {
+            suiteScope.ids.add(userId);
+        } else if (!suiteScope.ids.remove(userId)) {
+            scope.ids.add(userId);
+        } else {
+            // Estaba reservado para el final de la corrida: ahora lo elimina el escenario
+            tracked.decrement();
+            scope.ids.add(userId);
+        }
+    }
+
+    /**
+     * El usuario debe sobrevivir al escenario: se elimina recién al final de la corrida.
+     */
+    public void keepUntilSuiteEnd(String userId) {
+        if (userId == null || !config.isCleanupEnabled()) {
+            return;
+        }
+        Scope scope = currentScope.get();
+        if (scope != null) {
+            scope.ids.remove(userId);
+        }
+        suiteScope.ids.add(userId);
+    }
+
+    public void beginScenario() {
+        currentScope.set(new Scope());
+    }
+
+    /**
+     * Programa la eliminación de los usuarios del escenario del hilo actual y vuelve de inmediato.
+     */
+    public void endScenario() {
+        Scope scope = currentScope.get();
+        currentScope.remove();
+        if (scope != null) {
+            scheduleAll(scope.ids);
+        }
+    }
+
+    /**
+     * Ámbito del hilo actual, para que los hilos auxiliares (p. ej. los del UserSeeder)
+     * registren sus usuarios en el escenario que los pidió.
+     */
+    public Scope currentScope() {
+        return currentScope.get();
+    }
+
+    public void attach(Scope scope) {
+        if (scope != null) {
+            currentScope.set(scope);
+        }
+    }
+
+    public void detach() {
+        currentScope.remove();
+    }
+
+    /**
+     * Elimina los usuarios reservados para el final de la corrida y espera a que terminen
+     * todas las eliminaciones (también las de los escenarios), como máximo cleanup.timeout.seconds.
+     */
+    public CleanupReport drainAll() {
+        long start = System.nanoTime();
+        scheduleAll(suiteScope.ids);
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(inFlight);
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0]))
+                    .get(config.getCleanupTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Limpieza de usuarios: se agotaron los {} s de espera", config.getCleanupTimeoutSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Limpieza de usuarios interrumpida: {}", e.getMessage());
+        }
+
+        List<String> remaining = new ArrayList<>(pending);
+        remaining.addAll(failed.keySet());
+        CleanupReport report = new CleanupReport(tracked.sum(), deleted.sum(), remaining,
+                (System.nanoTime() - start) / 1_000_000);
+        if (remaining.isEmpty()) {
+            log.info("Limpieza de usuarios: {} de {} eliminados", report.getDeleted(), report.getTracked());
+        } else {
+            log.warn("Limpieza de usuarios: {} de {} eliminados, {} sin eliminar: {}",
+                    report.getDeleted(), report.getTracked(), remaining.size(), remaining);
+            failed.forEach((id, reason) -> log.debug("No se eliminó el usuario {}: {}", id, reason));
+        }
+        return report;
+    }
+
+    private void scheduleAll(Collection<String> ids) {
+        for (String id : ids) {
+            if (ids.remove(id)) {
+                schedule(id);
+            }
+        }
+    }
+
+    private void schedule(String id) {
+        pending.add(id);
+        // Las eliminaciones de un escenario se graban en su cassette aunque terminen después de él
+        CassetteFilter.ScenarioState cassetteScenario = CassetteFilter.getInstance().currentScenario();
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> delete(id, cassetteScenario), executor);
+        inFlight.add(future);
+        future.whenComplete((ignored, error) -> inFlight.remove(future));
+    }
+
+    private void delete(String id, CassetteFilter.ScenarioState cassetteScenario) {
+        RequestMetrics.setScenarioTag(CLEANUP_TAG);
+        CassetteFilter.getInstance().attach(cassetteScenario);
+        try {
+            Response response = apiClient.deleteAuthenticated(
+                    config.getUsersEndpoint() + "/" + id, tokenClient.getAdminToken());
+            int status = response.statusCode();
+            // 404: el escenario ya lo había eliminado
+            if (status == 200 || status == 204 || status == 404) {
+                deleted.increment();
+            } else {
+                failed.put(id, "status " + status);
+            }
+        } catch (Throwable e) {
+            failed.put(id, "error de red: " + e.getMessage());
+        } finally {
+            pending.remove(id);
+            CassetteFilter.getInstance().detach();
+            RequestMetrics.clearScenarioTag();
+        }
+    }
+
+    public static final class Scope {
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+    }
+
+    @Value
+    public static class CleanupReport {
+        long tracked;
+        long deleted;
+        List<String> remaining;
+        long durationMs;
+    }
+}
@@ -0,0 +1,164 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import com.google.gson.JsonObject;
+import io.restassured.response.Response;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recorre todos los usuarios de GET /api/usuarios?page=&size=, página por página.
+ * <p>
+ * Mientras se consumen los usuarios de una página ya se está descargando la siguiente, y cada
+ * usuario se lee del body con el parser streaming de Gson en el momento en que se pide: en
+ * memoria solo están el body de la página actual, el de la siguiente y el usuario en curso,
+ * así que recorrer 100k usuarios usa la misma memoria que recorrer cien.
+ * <p>
+ * Una página que no responde 200 corta el recorrido con una excepción.
+ */
+public class UserPageIterator implements Iterator<JsonObject> {
+
+    // Hilos de descarga anticipada; daemon para no retener la JVM al final de la corrida
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "user-pages-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ApiClient apiClient;
+    private final String endpoint;
+    private final String token;
+    private final int pageSize;
+
+    private int pageNumber;
+    private UserPageReader current;
+    private CompletableFuture<byte[]> nextPage;
+    private JsonObject nextItem;
+    private boolean finished;
+
+    private long itemsRead;
+    private int pagesRead;
+    private long reportedTotalElements = -1;
+    private int reportedTotalPages = -1;
+
+    public UserPageIterator(String token) {
+        this(token, TestConfig.getInstance().getPaginationPageSize());
+    }
+
+    public UserPageIterator(String token, int pageSize) {
+        this.apiClient = ApiClient.getInstance();
+        this.endpoint = TestConfig.getInstance().getUsersEndpoint();
+        this.token = token;
+        this.pageSize = Math.max(1, pageSize);
+        this.nextPage = fetch(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextItem == null && !finished) {
+            if (current == null) {
+                openNextPage();
+            } else {
+                nextItem = current.nextItem();
+                if (nextItem == null) {
+                    closePage();
+                }
+            }
+        }
+        return nextItem != null;
+    }
+
+    @Override
+    public JsonObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        JsonObject item = nextItem;
+        nextItem = null;
+        itemsRead++;
+        return item;
+    }
+
+    private void openNextPage() {
+        if (nextPage == null) {
+            finished = true;
+            return;
+        }
+        byte[] body;
+        try {
+            body = nextPage.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        current = new UserPageReader(body);
+        pagesRead++;
+        // La siguiente página se descarga mientras se lee esta; si ya se sabe que es la última, no se pide
+        boolean lastKnown = current.isLast() || (reportedTotalPages >= 0 && pageNumber + 1 >= reportedTotalPages);
+        nextPage = lastKnown ? null : fetch(pageNumber + 1);
+        pageNumber++;
+    }
+
+    private void closePage() {
+        current.finish();
+        if (current.getTotalElements() >= 0) {
+            reportedTotalElements = current.getTotalElements();
+        }
+        if (current.getTotalPages() >= 0) {
+            reportedTotalPages = current.getTotalPages();
+        }
+        // Página incompleta o vacía: no hay más, aunque ya se haya pedido la siguiente.
+        // Si la API limita el tamaño de página, 'size' trae el tamaño efectivo
+        int effectiveSize = current.getSize() > 0 ? current.getSize() : pageSize;
+        boolean exhausted = current.getItems() < effectiveSize || current.isLast()
+                || (reportedTotalPages >= 0 && pageNumber >= reportedTotalPages);
+        if (exhausted) {
+            if (nextPage != null) {
+                nextPage.cancel(false);
+                nextPage = null;
+            }
+            finished = true;
+        } else if (nextPage == null) {
+            nextPage = fetch(pageNumber);
+        }
+        current = null;
+    }
+
+    private CompletableFuture<byte[]> fetch(int page) {
+        String url = String.format("%s?page=%d&size=%d", endpoint, page, pageSize);
+        CassetteFilter.ScenarioState cassetteScenario = CassetteFilter.getInstance().currentScenario();
+        return CompletableFuture.supplyAsync(() -> {
+            CassetteFilter.getInstance().attach(cassetteScenario);
+            try {
+                Response response = apiClient.getAuthenticated(url, token);
+                if (response.statusCode() != 200) {
+                    throw new RuntimeException("La página " + page + " de usuarios respondió status "
+                            + response.statusCode() + ": " + response.asString());
+                }
+                return response.asByteArray();
+            } finally {
+                CassetteFilter.getInstance().detach();
+            }
+        }, PREFETCH);
+    }
+
+    public long getItemsRead() {
+        return itemsRead;
+    }
+
+    public int getPagesRead() {
+        return pagesRead;
+    }
+
+    /**
+     * totalElements informado por la última página leída, o -1 si la API no lo envía.
+     */
+    public long getReportedTotalElements() {
+        return reportedTotalElements;
+    }
+}
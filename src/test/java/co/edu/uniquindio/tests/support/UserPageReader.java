@@ -0,0 +1,146 @@
+package co.edu.uniquindio.tests.support;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lectura streaming de una página de GET /api/usuarios: los campos anteriores a 'content'
+ * se leen al abrirla, los usuarios de a uno y los campos posteriores al terminar el arreglo.
+ * Los metadatos (-1 si la API no los envía) están completos después de {@link #finish()}.
+ */
+class UserPageReader {
+
+    private final JsonReader reader;
+    private boolean inContent;
+    private boolean done;
+    private int items;
+    private int size = -1;
+    private long totalElements = -1;
+    private int totalPages = -1;
+    private boolean last;
+
+    UserPageReader(byte[] body) {
+        this.reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        try {
+            reader.beginObject();
+            inContent = readFieldsUntilContent();
+            if (!inContent) {
+                done = true;
+            }
+        } catch (IOException | IllegalStateException e) {
+            throw new RuntimeException("La página de usuarios no es un objeto JSON válido: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Siguiente usuario de 'content', o null al terminar el arreglo.
+     */
+    JsonObject nextItem() {
+        if (!inContent) {
+            return null;
+        }
+        try {
+            if (reader.hasNext()) {
+                JsonElement item = JsonParser.parseReader(reader);
+                items++;
+                return item.isJsonObject() ? item.getAsJsonObject() : new JsonObject();
+            }
+            reader.endArray();
+            inContent = false;
+            return null;
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Error leyendo los usuarios de la página: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lee los campos que quedan después de 'content' (p. ej. totalElements).
+     */
+    void finish() {
+        if (done) {
+            return;
+        }
+        try {
+            while (inContent && reader.hasNext()) {
+                reader.skipValue();
+            }
+            if (inContent) {
+                reader.endArray();
+                inContent = false;
+            }
+            readFieldsUntilContent();
+            reader.close();
+        } catch (IOException | IllegalStateException e) {
+            throw new RuntimeException("La página de usuarios no es un objeto JSON válido: " + e.getMessage(), e);
+        }
+        done = true;
+    }
+
+    /**
+     * Lee campos de la página hasta entrar al arreglo 'content' (true) o hasta el final
+     * del objeto (false).
+     */
+    private boolean readFieldsUntilContent() throws IOException {
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "content":
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        reader.beginArray();
+                        return true;
+                    }
+                    reader.skipValue();
+                    break;
+                case "totalElements":
+                    totalElements = reader.peek() == JsonToken.NUMBER ? reader.nextLong() : skip(-1);
+                    break;
+                case "size":
+                    size = reader.peek() == JsonToken.NUMBER ? reader.nextInt() : (int) skip(-1);
+                    break;
+                case "totalPages":
+                    totalPages = reader.peek() == JsonToken.NUMBER ? reader.nextInt() : (int) skip(-1);
+                    break;
+                case "last":
+                    last = reader.peek() == JsonToken.BOOLEAN ? reader.nextBoolean() : skip(0) != 0;
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return false;
+    }
+
+    int getItems() {
+        return items;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    long getTotalElements() {
+        return totalElements;
+    }
+
+    int getTotalPages() {
+        return totalPages;
+    }
+
+    boolean isLast() {
+        return last;
+    }
+
+    private long skip(long defaultValue) throws IOException {
+        reader.skipValue();
+        return defaultValue;
+    }
+}
@@ -0,0 +1,231 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.utils.UsersData;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de usuarios pre-creados (con su token ya obtenido) que se prestan a los escenarios.
+ * <p>
+ * Un usuario prestado es exclusivo del escenario hasta que termina: el hook @After lo devuelve.
+ * Si el escenario lo modifica (cambio de contraseña, eliminación...) debe marcarlo con
+ * {@link #markDirty(PooledUser)}; al devolverlo se descarta y se crea un reemplazo en segundo plano.
+ * <pre>
+ * UserPool.PooledUser user = UserPool.getInstance().lease();
+ * String token = user.getToken();
+ * </pre>
+ * Con user.pool.enabled=false cada préstamo crea un usuario nuevo y nunca se reutiliza.
+ */
+@Slf4j
+public class UserPool {
+
+    private static volatile UserPool instance;
+
+    private final TestConfig config;
+    private final TokenClient tokenClient;
+    private final UserSeeder seeder;
+
+    private final BlockingQueue<PooledUser> available = new LinkedBlockingQueue<>();
+    // Usuarios prestados al escenario que corre en cada hilo
+    private final ThreadLocal<List<PooledUser>> leasedByThread = ThreadLocal.withInitial(ArrayList::new);
+    private final AtomicInteger pendingReplacements = new AtomicInteger();
+    private final ExecutorService replenisher;
+    private volatile boolean filled;
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder createdOnDemand = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    private UserPool() {
+        this.config = TestConfig.getInstance();
+        this.tokenClient = TokenClient.getInstance();
+        this.seeder = UserSeeder.getInstance();
+        this.replenisher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-pool-replenisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static UserPool getInstance() {
+        if (instance == null) {
+            synchronized (UserPool.class) {
+                if (instance == null) {
+                    instance = new UserPool();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Presta un usuario libre. Si no hay ninguno en user.pool.lease.timeout.ms
+     * se crea uno nuevo, que al devolverse queda en el pool.
+     */
+    public PooledUser lease() {
+        leases.increment();
+        PooledUser user = null;
+        if (config.isUserPoolEnabled()) {
+            fillOnce();
+            try {
+                user = available.poll(config.getUserPoolLeaseTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Préstamo de usuario interrumpido", e);
+            }
+        }
+        if (user == null) {
+            createdOnDemand.increment();
+            List<PooledUser> fresh = provision(1);
+            if (fresh.isEmpty()) {
+                throw new RuntimeException("No hay usuarios libres en el pool y no se pudo crear uno nuevo");
+            }
+            user = fresh.get(0);
+            if (config.isUserPoolEnabled()) {
+                log.debug("Pool de usuarios agotado, se creó {}", user.getEmail());
+            }
+        }
+        leasedByThread.get().add(user);
+        return user;
+    }
+
+    /**
+     * Crea los usuarios del pool por adelantado (la primera llamada a {@link #lease()} lo haría).
+     */
+    public void prefill() {
+        if (config.isUserPoolEnabled()) {
+            fillOnce();
+        }
+    }
+
+    /**
+     * El escenario modificó el usuario: no se devuelve al pool, se reemplaza.
+     */
+    public void markDirty(PooledUser user) {
+        user.dirty = true;
+    }
+
+    /**
+     * Devuelve los usuarios prestados al escenario del hilo actual.
+     * Si el escenario falló se descartan todos: su estado ya no es confiable.
+     */
+    public void releaseLeased(boolean scenarioFailed) {
+        List<PooledUser> leased = leasedByThread.get();
+        if (leased.isEmpty()) {
+            return;
+        }
+        for (PooledUser user : leased) {
+            if (scenarioFailed || user.dirty || !config.isUserPoolEnabled()) {
+                discard(user);
+            } else {
+                available.offer(user);
+            }
+        }
+        leased.clear();
+    }
+
+    private void discard(PooledUser user) {
+        tokenClient.invalidateToken(user.getEmail());
+        // Se elimina junto con los usuarios del escenario
+        UserCleanup.getInstance().track(user.getId());
+        if (!config.isUserPoolEnabled()) {
+            return;
+        }
+        replaced.increment();
+        // Los reemplazos pendientes se agrupan en una sola siembra
+        if (pendingReplacements.getAndIncrement() == 0) {
+            replenisher.execute(() -> available.addAll(provision(pendingReplacements.getAndSet(0))));
+        }
+    }
+
+    private void fillOnce() {
+        if (filled) {
+            return;
+        }
+        synchronized (this) {
+            if (!filled) {
+                long start = System.nanoTime();
+                List<PooledUser> users = provision(config.getUserPoolSize());
+                available.addAll(users);
+                filled = true;
+                log.info("Pool de usuarios listo: {} de {} usuarios en {} ms",
+                        users.size(), config.getUserPoolSize(), (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Crea count usuarios con el UserSeeder e inicia sesión con cada uno para dejar su token en caché.
+     */
+    private List<PooledUser> provision(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        UserSeeder.SeedReport report = seeder.seed(count, false);
+        List<PooledUser> users = new ArrayList<>(report.getCreated().size());
+        for (UserSeeder.SeededUser seeded : report.getCreated()) {
+            PooledUser user = new PooledUser(seeded.getId(), seeded.getData());
+            try {
+                user.getToken();
+                users.add(user);
+                // Se reutiliza entre escenarios: se elimina recién al final de la corrida
+                UserCleanup.getInstance().keepUntilSuiteEnd(user.getId());
+            } catch (RuntimeException e) {
+                log.warn("El usuario {} no pudo iniciar sesión, no se agrega al pool: {}",
+                        user.getEmail(), e.getMessage());
+            }
+        }
+        return users;
+    }
+
+    public PoolStats getStats() {
+        return new PoolStats(available.size(), leases.sum(), createdOnDemand.sum(), replaced.sum());
+    }
+
+    @Getter
+    public static class PooledUser {
+        private final String id;
+        private final UsersData.UserTestData data;
+        private volatile boolean dirty;
+
+        PooledUser(String id, UsersData.UserTestData data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        public String getEmail() {
+            return data.getEmail();
+        }
+
+        public String getPassword() {
+            return data.getPassword();
+        }
+
+        /**
+         * Token del usuario, normalmente ya en la caché del TokenClient.
+         */
+        public String getToken() {
+            return TokenClient.getInstance().getToken(getEmail(), getPassword());
+        }
+    }
+
+    @Value
+    public static class PoolStats {
+        int available;
+        long leases;
+        long createdOnDemand;
+        long replaced;
+    }
+}
@@ -0,0 +1,215 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import co.edu.uniquindio.tests.stub.CassetteFilter;
+import co.edu.uniquindio.tests.utils.UsersData;
+import io.restassured.response.Response;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Crea poblaciones de usuarios (y opcionalmente sus perfiles) de forma concurrente,
+ * con un número acotado de solicitudes en vuelo (seed.concurrency).
+ * <p>
+ * Un 409 (email ya existente) se reintenta con datos nuevos; un 5xx o un error de red
+ * se reintenta con backoff exponencial, hasta seed.max.retries veces.
+ * <pre>
+ * UserSeeder.SeedReport report = UserSeeder.getInstance().seed(10_000, false);
+ * </pre>
+ */
+@Slf4j
+public class UserSeeder {
+
+    private static volatile UserSeeder instance;
+
+    private static final long BASE_BACKOFF_MS = 100;
+
+    private final TestConfig config;
+    private final ApiClient apiClient;
+    private final AuthClient authClient;
+    private final TokenClient tokenClient;
+
+    private UserSeeder() {
+        this.config = TestConfig.getInstance();
+        this.apiClient = ApiClient.getInstance();
+        this.authClient = AuthClient.getInstance();
+        this.tokenClient = TokenClient.getInstance();
+    }
+
+    public static UserSeeder getInstance() {
+        if (instance == null) {
+            synchronized (UserSeeder.class) {
+                if (instance == null) {
+                    instance = new UserSeeder();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Crea count usuarios y espera a que terminen todos.
+     * Con withProfiles cada usuario inicia sesión y crea su perfil.
+     */
+    public SeedReport seed(int count, boolean withProfiles) {
+        int workers = Math.max(1, Math.min(count, config.getSeedConcurrency()));
+        AtomicInteger next = new AtomicInteger();
+        LongAdder retries = new LongAdder();
+        List<SeededUser> created = Collections.synchronizedList(new ArrayList<>(count));
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+        // Los workers registran sus usuarios (y graban su tráfico) en el escenario que pidió la siembra
+        UserCleanup.Scope cleanupScope = UserCleanup.getInstance().currentScope();
+        CassetteFilter.ScenarioState cassetteScenario = CassetteFilter.getInstance().currentScenario();
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "user-seeder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Cada worker toma el siguiente índice: nunca hay más de 'workers' solicitudes en vuelo
+            List<Future<?>> running = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                running.add(executor.submit(() -> {
+                    UserCleanup.getInstance().attach(cleanupScope);
+                    CassetteFilter.getInstance().attach(cassetteScenario);
+                    try {
+                        while (next.getAndIncrement() < count) {
+                            try {
+                                created.add(createUser(withProfiles, retries));
+                            } catch (RuntimeException e) {
+                                failures.add(e.getMessage());
+                            }
+                        }
+                    } finally {
+                        UserCleanup.getInstance().detach();
+                        CassetteFilter.getInstance().detach();
+                    }
+                }));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Siembra de usuarios interrumpida", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error en la siembra de usuarios: " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SeedReport report = new SeedReport(count, List.copyOf(created), List.copyOf(failures),
+                retries.sum(), (System.nanoTime() - start) / 1_000_000);
+        log.info("Siembra: {} de {} usuarios creados en {} ms ({} usuarios/s, {} reintentos, {} fallidos)",
+                report.getCreated().size(), count, report.getDurationMs(),
+                String.format("%.1f", report.getUsersPerSecond()), report.getRetries(), report.getFailures().size());
+        return report;
+    }
+
+    private SeededUser createUser(boolean withProfile, LongAdder retries) {
+        for (int attempt = 0; ; attempt++) {
+            UsersData.UserTestData user = UsersData.generateRandomUser();
+            Response response;
+            try {
+                response = apiClient.postAuthenticated(
+                        config.getUsersEndpoint(), UsersData.userToMap(user), tokenClient.getAdminToken());
+            } catch (Exception e) {
+                retryOrFail(attempt, retries, "error de red: " + e.getMessage());
+                continue;
+            }
+
+            int status = response.statusCode();
+            if (status == 201) {
+                SeededUser seeded = new SeededUser(extractUserId(response), user);
+                if (withProfile) {
+                    createProfile(seeded, retries);
+                }
+                return seeded;
+            }
+            // 409: el email ya existe; el siguiente intento genera otro usuario
+            if (status == 409 || status >= 500) {
+                retryOrFail(attempt, retries, "status " + status);
+                continue;
+            }
+            throw new RuntimeException("No se pudo crear el usuario " + user.getEmail()
+                    + ". Status: " + status + " - " + response.asString());
+        }
+    }
+
+    private void createProfile(SeededUser user, LongAdder retries) {
+        // Login directo (sin caché de tokens): no tiene sentido guardar miles de tokens de un solo uso
+        Response login = authClient.requestTokenResponse(user.getData().getEmail(), user.getData().getPassword());
+        if (login.statusCode() != 200) {
+            throw new RuntimeException("El usuario sembrado " + user.getData().getEmail()
+                    + " no pudo iniciar sesión. Status: " + login.statusCode());
+        }
+        String token = ResponseView.of(login).getString("access_token");
+
+        for (int attempt = 0; ; attempt++) {
+            Response response = apiClient.putAuthenticated(config.getProfilesEndpoint(),
+                    UsersData.profileToMap(UsersData.generateRandomProfile()), token);
+            int status = response.statusCode();
+            if (status == 200 || status == 201) {
+                return;
+            }
+            if (status >= 500) {
+                retryOrFail(attempt, retries, "perfil, status " + status);
+                continue;
+            }
+            throw new RuntimeException("No se pudo crear el perfil de " + user.getData().getEmail()
+                    + ". Status: " + status);
+        }
+    }
+
+    private void retryOrFail(int attempt, LongAdder retries, String reason) {
+        if (attempt >= config.getSeedMaxRetries()) {
+            throw new RuntimeException("Reintentos agotados (" + reason + ")");
+        }
+        retries.increment();
+        long backoff = BASE_BACKOFF_MS << attempt;
+        try {
+            Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Siembra de usuarios interrumpida", e);
+        }
+    }
+
+    /**
+     * La respuesta de creación puede venir anidada ("usuario.id") o plana ("id").
+     */
+    static String extractUserId(Response response) {
+        return ResponseView.of(response).firstString("usuario.id", "id");
+    }
+
+    @Value
+    public static class SeededUser {
+        String id;
+        UsersData.UserTestData data;
+    }
+
+    @Value
+    public static class SeedReport {
+        int requested;
+        List<SeededUser> created;
+        List<String> failures;
+        long retries;
+        long durationMs;
+
+        public double getUsersPerSecond() {
+            return durationMs == 0 ? created.size() : created.size() * 1000.0 / durationMs;
+        }
+    }
+}
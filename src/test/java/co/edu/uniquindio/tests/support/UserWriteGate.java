@@ -0,0 +1,88 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Filtro de RestAssured que deja pausar las altas y bajas de usuarios (POST y DELETE bajo
+ * /api/usuarios) de todos los hilos: los escenarios en paralelo, los workers del
+ * {@link UserSeeder}, la limpieza asíncrona del {@link UserCleanup} y la reposición del
+ * {@link UserPool}.
+ * <p>
+ * Cada escritura toma el permiso compartido durante la solicitud; {@link #exclusive} espera a
+ * que terminen las que están en vuelo y frena las nuevas mientras corre, p. ej. para que el
+ * {@link PaginationCrawler} recorra una lista de usuarios que no cambia. El lock es justo
+ * para que una carga continua de escrituras no posponga el recorrido indefinidamente.
+ */
+public class UserWriteGate implements Filter {
+
+    private static volatile UserWriteGate instance;
+
+    private final String usersPath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    private UserWriteGate() {
+        this.usersPath = URI.create(TestConfig.getInstance().getUsersEndpoint()).getPath();
+    }
+
+    public static UserWriteGate getInstance() {
+        if (instance == null) {
+            synchronized (UserWriteGate.class) {
+                if (instance == null) {
+                    instance = new UserWriteGate();
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec,
+                           FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (!isUserWrite(requestSpec)) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        lock.readLock().lock();
+        try {
+            return ctx.next(requestSpec, responseSpec);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción sin altas ni bajas de usuarios de otros hilos; las del propio hilo
+     * no se bloquean.
+     */
+    public <T> T exclusive(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isUserWrite(FilterableRequestSpecification requestSpec) {
+        String method = requestSpec.getMethod();
+        if (!"POST".equals(method) && !"DELETE".equals(method)) {
+            return false;
+        }
+        try {
+            String path = URI.create(requestSpec.getURI()).getPath();
+            return path != null && path.startsWith(usersPath);
+        } catch (IllegalArgumentException e) {
+            return requestSpec.getURI().contains(usersPath);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package co.edu.uniquindio.tests.support;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+import io.restassured.specification.RequestSpecification;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calentamiento que se ejecuta una vez por corrida, antes del primer escenario:
+ * obtiene el token de admin, abre warmup.connections conexiones a la API y a Keycloak
+ * (quedan libres en el pool HTTP), envía warmup.requests solicitudes de calentamiento
+ * (JIT del cliente y cachés del servidor) y llena el {@link UserPool}.
+ * <p>
+ * Las solicitudes no se miden: no cuentan en las métricas de latencia de los escenarios.
+ * Un fallo aquí solo se registra en el log; los escenarios fallarán con su propio detalle.
+ */
+@Slf4j
+public final class WarmUp {
+
+    private WarmUp() {
+    }
+
+    public static void run() {
+        TestConfig config = TestConfig.getInstance();
+        if (!config.isWarmupEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        String adminToken;
+        try {
+            adminToken = TokenClient.getInstance().getAdminToken();
+        } catch (RuntimeException e) {
+            log.warn("Calentamiento: no se pudo obtener el token de admin: {}", e.getMessage());
+            return;
+        }
+
+        int connections = Math.max(1, config.getWarmupConnections());
+        int requests = Math.max(0, config.getWarmupRequests());
+        LongAdder failures = new LongAdder();
+        // Todos los hilos arrancan a la vez para que cada uno abra su propia conexión
+        CyclicBarrier startTogether = new CyclicBarrier(connections);
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> workers = new ArrayList<>(connections);
+            for (int w = 0; w < connections; w++) {
+                workers.add(executor.submit(() -> {
+                    startTogether.await();
+                    send(config.getHealthEndpoint(), null, failures);
+                    send(config.getKeycloakJwksUrl(), null, failures);
+                    while (next.getAndIncrement() < requests) {
+                        send(config.getUsersEndpoint() + "?page=0&size=5", adminToken, failures);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.warn("Calentamiento interrumpido: {}", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (config.isWarmupUserPool()) {
+            try {
+                UserPool.getInstance().prefill();
+            } catch (RuntimeException e) {
+                log.warn("Calentamiento: no se pudo llenar el pool de usuarios: {}", e.getMessage());
+            }
+        }
+
+        HttpTransport.PoolMetrics pool = HttpTransport.getInstance().getPoolMetrics();
+        log.info("Calentamiento: {} conexiones, {} solicitudes ({} fallidas) en {} ms; conexiones libres en el pool={}",
+                connections, requests + 2L * connections, failures.sum(),
+                (System.nanoTime() - start) / 1_000_000, pool.getAvailable());
+    }
+
+    private static void send(String url, String token, LongAdder failures) {
+        try {
+            RequestSpecification request = HttpTransport.getInstance().unmeasuredRequest().accept("application/json");
+            if (token != null) {
+                request.header("Authorization", "Bearer " + token);
+            }
+            if (request.get(url).statusCode() >= 500) {
+                failures.increment();
+            }
+        } catch (Throwable e) {
+            failures.increment();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package co.edu.uniquindio.tests.utils;
+
+import co.edu.uniquindio.tests.config.TestConfig;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de datos de prueba en español, pensado para producir millones de registros por
+ * segundo: tablas de palabras precalculadas, sin expresiones regulares ni formateo de Strings.
+ * <p>
+ * Cada hilo tiene su propio generador (no hay estado compartido salvo un contador atómico).
+ * Con data.seed en test.properties los datos son reproducibles: el hilo N de la corrida
+ * siempre recibe la misma secuencia. El sufijo único de usernames y emails no depende de
+ * la semilla, así que dos corridas con la misma semilla no chocan con datos ya creados.
+ */
+final class DataGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Alejandro", "Andrés", "Camila", "Carlos", "Carolina", "Daniela", "Diego", "Felipe",
+            "Gabriela", "Isabella", "Javier", "José", "Juan", "Julián", "Laura", "Lucía", "Luis",
+            "Manuela", "María", "Mariana", "Martín", "Mateo", "Natalia", "Nicolás", "Paula",
+            "Ricardo", "Santiago", "Sebastián", "Sofía", "Valentina", "Valeria", "Verónica"};
+
+    private static final String[] LAST_NAMES = {
+            "Álvarez", "Castro", "Díaz", "Fernández", "García", "Gómez", "González", "Gutiérrez",
+            "Hernández", "Jiménez", "López", "Martínez", "Morales", "Muñoz", "Ortiz", "Pérez",
+            "Ramírez", "Restrepo", "Rodríguez", "Rojas", "Romero", "Ruiz", "Sánchez", "Torres",
+            "Vargas", "Vásquez"};
+
+    private static final String[] NICKNAME_ADJECTIVES = {
+            "Alegre", "Audaz", "Curioso", "Feliz", "Gran", "Intrépido", "Rápido", "Sabio",
+            "Sereno", "Valiente", "Veloz", "Sonriente"};
+
+    private static final String[] NICKNAME_NOUNS = {
+            "Búho", "Cóndor", "Colibrí", "Delfín", "Jaguar", "Lince", "Lobo", "Oso", "Puma",
+            "Tucán", "Zorro", "Halcón"};
+
+    private static final String[] WORDS = {
+            "proyecto", "desarrollo", "equipo", "software", "datos", "sistema", "usuario", "diseño",
+            "comunidad", "aprendizaje", "tecnología", "servicio", "calidad", "pruebas", "nube",
+            "arquitectura", "código", "abierto", "innovación", "universidad", "investigación",
+            "plataforma", "producto", "cliente", "experiencia", "seguridad", "rendimiento",
+            "automatización", "integración", "análisis", "gestión", "soluciones"};
+
+    private static final String[] DOMAIN_WORDS = {
+            "andina", "cafetera", "quindio", "pacifico", "caribe", "montana", "llanos", "cordillera",
+            "sabana", "valle"};
+
+    private static final String[] DOMAIN_SUFFIXES = {"", "tech", "digital", "labs", "web", "-dev"};
+
+    private static final String[] TLDS = {".com", ".co", ".es", ".org", ".net"};
+
+    private static final String[] EMAIL_DOMAINS = {
+            "gmail.com", "hotmail.com", "yahoo.es", "outlook.com", "correo.co"};
+
+    private static final String[] STREET_TYPES = {"Calle", "Carrera", "Avenida", "Transversal", "Diagonal"};
+
+    private static final String[] CITIES = {
+            "Armenia", "Bogotá", "Medellín", "Cali", "Pereira", "Manizales", "Barranquilla",
+            "Cartagena", "Bucaramanga", "Madrid", "Barcelona", "Sevilla", "Valencia", "Quito", "Lima"};
+
+    private static final String[] COMPANY_PREFIXES = {
+            "Soluciones", "Servicios", "Grupo", "Industrias", "Tecnologías", "Consultores", "Inversiones"};
+
+    private static final String[] COMPANY_SUFFIXES = {"S.A.S.", "S.A.", "Ltda.", "y Asociados", "SL"};
+
+    private static final String[] COUNTRIES = {
+            "Colombia", "España", "México", "Argentina", "Chile", "Perú", "Ecuador", "Venezuela",
+            "Uruguay", "Paraguay", "Bolivia", "Costa Rica", "Panamá", "Guatemala", "Honduras"};
+
+    private static final char[] UPPER = "ABCDEFGHJKLMNPQRSTUVWXYZ".toCharArray();
+    private static final char[] LOWER = "abcdefghijkmnopqrstuvwxyz".toCharArray();
+    private static final char[] DIGITS = "0123456789".toCharArray();
+    private static final char[] SPECIAL = "!@#$%&*?".toCharArray();
+    private static final char[] ALL = (new String(UPPER) + new String(LOWER) + new String(DIGITS)
+            + new String(SPECIAL)).toCharArray();
+
+    // Versiones en minúscula y sin tildes, para usernames y emails
+    private static final String[] FIRST_NAMES_ASCII = toAscii(FIRST_NAMES);
+    private static final String[] LAST_NAMES_ASCII = toAscii(LAST_NAMES);
+
+    // Sufijo único: identificador de la corrida + contador, en base 36
+    private static final String RUN_ID = Long.toString(System.currentTimeMillis() % 1_679_616L, 36);
+    private static final AtomicLong uniqueCounter = new AtomicLong();
+
+    private static final AtomicLong threadCounter = new AtomicLong();
+    private static final ThreadLocal<DataGenerator> generators = ThreadLocal.withInitial(DataGenerator::create);
+
+    private final SplittableRandom random;
+
+    private DataGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    static DataGenerator current() {
+        return generators.get();
+    }
+
+    private static DataGenerator create() {
+        Long seed = TestConfig.getInstance().getDataSeed();
+        if (seed == null) {
+            return new DataGenerator(new SplittableRandom());
+        }
+        // Semilla distinta (pero reproducible) para cada hilo, según el orden en que lo piden
+        long threadIndex = threadCounter.incrementAndGet();
+        return new DataGenerator(new SplittableRandom(seed + threadIndex * 0x9E3779B97F4A7C15L));
+    }
+
+    int firstNameIndex() {
+        return random.nextInt(FIRST_NAMES.length);
+    }
+
+    int lastNameIndex() {
+        return random.nextInt(LAST_NAMES.length);
+    }
+
+    static String firstName(int index) {
+        return FIRST_NAMES[index];
+    }
+
+    static String lastName(int index) {
+        return LAST_NAMES[index];
+    }
+
+    /**
+     * "nombre.apellido" sin tildes + sufijo único de la corrida, p. ej. "maria.gomez.k3f2a7".
+     */
+    String username(int firstNameIndex, int lastNameIndex) {
+        return new StringBuilder(32)
+                .append(FIRST_NAMES_ASCII[firstNameIndex]).append('.')
+                .append(LAST_NAMES_ASCII[lastNameIndex]).append('.')
+                .append(uniqueSuffix())
+                .toString();
+    }
+
+    String email(String username) {
+        return username + '@' + pick(EMAIL_DOMAINS);
+    }
+
+    String email() {
+        return email(username(firstNameIndex(), lastNameIndex()));
+    }
+
+    /**
+     * Entre 8 y 16 caracteres con al menos una mayúscula, una minúscula, un dígito y un especial.
+     */
+    String strongPassword() {
+        int length = 8 + random.nextInt(9);
+        char[] password = new char[length];
+        password[0] = pick(UPPER);
+        password[1] = pick(LOWER);
+        password[2] = pick(DIGITS);
+        password[3] = pick(SPECIAL);
+        for (int i = 4; i < length; i++) {
+            password[i] = pick(ALL);
+        }
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char tmp = password[i];
+            password[i] = password[j];
+            password[j] = tmp;
+        }
+        return new String(password);
+    }
+
+    /**
+     * Celular en formato español: "6xx xxx xxx".
+     */
+    String cellPhone() {
+        StringBuilder phone = new StringBuilder(11).append(random.nextBoolean() ? '6' : '7');
+        for (int i = 1; i < 9; i++) {
+            if (i == 3 || i == 6) {
+                phone.append(' ');
+            }
+            phone.append(pick(DIGITS));
+        }
+        return phone.toString();
+    }
+
+    String nickname() {
+        return pick(NICKNAME_NOUNS) + ' ' + pick(NICKNAME_ADJECTIVES);
+    }
+
+    /**
+     * Párrafo de 3 a 5 oraciones de 4 a 10 palabras.
+     */
+    String paragraph() {
+        StringBuilder paragraph = new StringBuilder(256);
+        int sentences = 3 + random.nextInt(3);
+        for (int s = 0; s < sentences; s++) {
+            if (s > 0) {
+                paragraph.append(' ');
+            }
+            int words = 4 + random.nextInt(7);
+            String first = pick(WORDS);
+            paragraph.append(Character.toUpperCase(first.charAt(0))).append(first, 1, first.length());
+            for (int w = 1; w < words; w++) {
+                paragraph.append(' ').append(pick(WORDS));
+            }
+            paragraph.append('.');
+        }
+        return paragraph.toString();
+    }
+
+    String domainName() {
+        return pick(DOMAIN_WORDS) + pick(DOMAIN_SUFFIXES) + pick(TLDS);
+    }
+
+    /**
+     * "Calle 12 # 34-56, Armenia".
+     */
+    String fullAddress() {
+        return new StringBuilder(48)
+                .append(pick(STREET_TYPES)).append(' ').append(1 + random.nextInt(150))
+                .append(" # ").append(1 + random.nextInt(99)).append('-').append(1 + random.nextInt(99))
+                .append(", ").append(pick(CITIES))
+                .toString();
+    }
+
+    String companyName() {
+        return pick(COMPANY_PREFIXES) + ' ' + LAST_NAMES[random.nextInt(LAST_NAMES.length)]
+                + ' ' + pick(COMPANY_SUFFIXES);
+    }
+
+    String country() {
+        return pick(COUNTRIES);
+    }
+
+    boolean bool() {
+        return random.nextBoolean();
+    }
+
+    /**
+     * Handle para redes sociales: "mariagomez427".
+     */
+    String socialHandle() {
+        return FIRST_NAMES_ASCII[random.nextInt(FIRST_NAMES_ASCII.length)]
+                + LAST_NAMES_ASCII[random.nextInt(LAST_NAMES_ASCII.length)]
+                + random.nextInt(1000);
+    }
+
+    private static String uniqueSuffix() {
+        return RUN_ID + Long.toString(uniqueCounter.incrementAndGet(), 36);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private char pick(char[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String[] toAscii(String[] values) {
+        String[] ascii = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ascii[i] = Normalizer.normalize(values[i], Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT);
+        }
+        return ascii;
+    }
+}
@@ -1,62 +1,55 @@
 package co.edu.uniquindio.tests.utils;
 
-import com.github.javafaker.Faker;
 import lombok.Builder;
 import lombok.Data;
 
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 public class UsersData {
 
-    private static final Faker faker = new Faker(new Locale("es"));
+    // Generador propio por hilo (ver DataGenerator): Faker es lento y no es seguro entre hilos
+    private static DataGenerator generator() {
+        return DataGenerator.current();
+    }
 
     public static UserTestData generateRandomUser() {
-        String firstName = faker.name().firstName();
-        String lastName = faker.name().lastName();
-        String username = generateUsername(firstName, lastName);
+        DataGenerator generator = generator();
+        int firstName = generator.firstNameIndex();
+        int lastName = generator.lastNameIndex();
+        String username = generator.username(firstName, lastName);
 
         return UserTestData.builder()
                 .username(username)
-                .email(faker.internet().emailAddress(username))
-                .password(generateStrongPassword())
-                .firstName(firstName)
-                .lastName(lastName)
+                .email(generator.email(username))
+                .password(generator.strongPassword())
+                .firstName(DataGenerator.firstName(firstName))
+                .lastName(DataGenerator.lastName(lastName))
                 .build();
     }
 
     public static ProfileTestData generateRandomProfile() {
+        DataGenerator generator = generator();
         return ProfileTestData.builder()
-                .apodo(faker.funnyName().name())
-                .biografia(faker.lorem().paragraph())
-                .paginaPersonal("https://" + faker.internet().domainName())
-                .direccion(faker.address().fullAddress())
-                .organizacion(faker.company().name())
-                .paisResidencia(faker.address().country())
-                .informacionPublica(faker.bool().bool())
-                .twitter("@" + faker.name().username())
-                .linkedin("linkedin.com/in/" + faker.name().username())
-                .github("github.com/" + faker.name().username())
+                .apodo(generator.nickname())
+                .biografia(generator.paragraph())
+                .paginaPersonal("https://" + generator.domainName())
+                .direccion(generator.fullAddress())
+                .organizacion(generator.companyName())
+                .paisResidencia(generator.country())
+                .informacionPublica(generator.bool())
+                .twitter("@" + generator.socialHandle())
+                .linkedin("linkedin.com/in/" + generator.socialHandle())
+                .github("github.com/" + generator.socialHandle())
                 .build();
     }
 
-    private static String generateUsername(String firstName, String lastName) {
-        String base = firstName.toLowerCase() + "." + lastName.toLowerCase();
-        String clean = base.replaceAll("[^a-z.]", "");
-        return clean + faker.number().numberBetween(1, 999);
-    }
-
-    private static String generateStrongPassword() {
-        return faker.internet().password(8, 16, true, true, true);
-    }
-
     public static String generateEmail() {
-        return faker.internet().emailAddress();
+        return generator().email();
     }
 
     public static String generatePhone() {
-        return faker.phoneNumber().cellPhone();
+        return generator().cellPhone();
     }
 
     public static Map<String, Object> userToMap(UserTestData user) {
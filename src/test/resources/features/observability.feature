@@ -18,4 +18,13 @@ Característica: Endpoints de Observabilidad
   Escenario: Verificar endpoint de métricas de Prometheus
     Cuando envío una solicitud al endpoint de métricas
     Entonces debo recibir un código de estado 200
-    Y la respuesta debe estar en formato Prometheus
\ No newline at end of file
+    Y la respuesta debe estar en formato Prometheus
+
+  @Metrics
+  Escenario: Las métricas del servidor reflejan las solicitudes atendidas
+    Dado que tomo una instantánea de las métricas del servidor
+    Cuando envío 20 solicitudes al listado de usuarios
+    Y tomo otra instantánea de las métricas del servidor
+    Entonces el servidor debe haber atendido al menos 20 solicitudes
+    Y el servidor no debe registrar errores 5xx
+    Y el percentil 95 de latencia del servidor debe ser menor a 2000 ms
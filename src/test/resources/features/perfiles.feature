@@ -23,6 +23,8 @@ Característica: Gestión de Perfiles de Usuario
     Cuando envío una solicitud para obtener mi perfil
     Entonces debo recibir un código de estado 200
     Y debo recibir los datos de mi perfil
+    Y la respuesta debe llegar en menos de 2000 ms
+    Y los endpoints deben cumplir sus presupuestos de latencia
 
   @Smoke @ActualizarPerfil
   Escenario: Actualizar información del perfil
@@ -53,6 +53,7 @@ Característica: Gestión de Usuarios
     Cuando envío una solicitud para listar todos los usuarios
     Entonces debo recibir un código de estado 200
     Y debo recibir una lista de usuarios
+    Y la respuesta debe llegar en menos de 2000 ms
     Y cada usuario debe cumplir con el esquema de usuario
 
   @Pagination @ListarUsuarios
@@ -63,6 +64,19 @@ Característica: Gestión de Usuarios
     Y debo recibir máximo 5 usuarios
     Y la respuesta debe contener información de paginación
 
+  @Pagination @ListarUsuarios
+  Escenario: Todos los usuarios de todas las páginas cumplen el esquema
+    Dado que existen múltiples usuarios en el sistema
+    Entonces todos los usuarios de todas las páginas deben cumplir con el esquema de usuario
+
+  @Pagination @ListarUsuarios @Consistencia
+  Escenario: Recorrer todas las páginas en paralelo sin repetidos ni faltantes
+    Dado que existen 30 usuarios creados en el sistema
+    Cuando recorro todas las páginas de usuarios con tamaño 7 y 4 solicitudes en paralelo
+    Entonces ningún usuario debe aparecer en más de una página
+    Y todos los usuarios creados deben aparecer en alguna página
+    Y el total de usuarios recorridos debe coincidir con totalElements
+
   @Smoke @ObtenerUsuario
   Escenario: Obtener un usuario por ID
     Dado que existe un usuario en el sistema